@@ -10,8 +10,8 @@ import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
 import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.LazyArchiveProgramResources;
 import com.android.tools.r8.utils.ZipUtils;
-import com.google.common.io.ByteStreams;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -98,34 +98,37 @@ public class ArchiveProgramResourceProvider implements ProgramResourceProvider {
         }
       }
     } catch (ZipException e) {
-      throw new CompilationError("Zip error while reading archive" + e.getMessage(), e, origin);
+      throw zipError(e);
     }
   }
 
+  private CompilationError zipError(ZipException e) {
+    return new CompilationError("Zip error while reading archive: " + e.getMessage(), e, origin);
+  }
+
   @Override
   public Collection<ProgramResource> getProgramResources() throws ResourceException {
-    try {
+    // Only the names of the entries are read here. The entries are inflated when the resources are
+    // read, which the compiler does concurrently.
+    LazyArchiveProgramResources lazyResources = new LazyArchiveProgramResources(supplier);
+    try (ZipFile zipFile = supplier.open()) {
       List<ProgramResource> dexResources = new ArrayList<>();
       List<ProgramResource> classResources = new ArrayList<>();
-      readArchive(
-          (entry, stream) -> {
-            String name = entry.getEntryName();
-            if (include.test(name)) {
-              if (ZipUtils.isDexFile(name)) {
-                dexResources.add(
-                    ProgramResource.fromBytes(
-                        entry, Kind.DEX, ByteStreams.toByteArray(stream), null));
-              } else if (ZipUtils.isClassFile(name)) {
-                String descriptor = DescriptorUtils.guessTypeDescriptor(name);
-                classResources.add(
-                    ProgramResource.fromBytes(
-                        entry,
-                        Kind.CF,
-                        ByteStreams.toByteArray(stream),
-                        Collections.singleton(descriptor)));
-              }
-            }
-          });
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (include.test(name)) {
+          ArchiveEntryOrigin entryOrigin = new ArchiveEntryOrigin(name, origin);
+          if (ZipUtils.isDexFile(name)) {
+            dexResources.add(lazyResources.createResource(Kind.DEX, entryOrigin, name, null));
+          } else if (ZipUtils.isClassFile(name)) {
+            String descriptor = DescriptorUtils.guessTypeDescriptor(name);
+            classResources.add(
+                lazyResources.createResource(
+                    Kind.CF, entryOrigin, name, Collections.singleton(descriptor)));
+          }
+        }
+      }
       if (!dexResources.isEmpty() && !classResources.isEmpty()) {
         throw new CompilationError(
             "Cannot create android app from an archive containing both DEX and Java-bytecode "
@@ -133,6 +136,8 @@ public class ArchiveProgramResourceProvider implements ProgramResourceProvider {
             origin);
       }
       return !dexResources.isEmpty() ? dexResources : classResources;
+    } catch (ZipException e) {
+      throw zipError(e);
     } catch (IOException e) {
       throw new ResourceException(origin, e);
     }
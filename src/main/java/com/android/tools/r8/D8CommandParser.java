@@ -178,7 +178,7 @@ public class D8CommandParser extends BaseCompilerCommandParser<D8Command, D8Comm
     return new D8CommandParser().parse(args, origin, D8Command.builder(handler));
   }
 
-  private D8Command.Builder parse(String[] args, Origin origin, D8Command.Builder builder) {
+  D8Command.Builder parse(String[] args, Origin origin, D8Command.Builder builder) {
     CompilationMode compilationMode = null;
     Path outputPath = null;
     OutputMode outputMode = null;
@@ -0,0 +1,275 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import com.android.tools.r8.origin.CommandLineOrigin;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.ClassFileArchiveCache;
+import com.android.tools.r8.utils.OptionsParsing;
+import com.android.tools.r8.utils.OptionsParsing.ParseContext;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.google.common.base.Charsets;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A long running D8 service that reads compilation requests from an input stream and writes the
+ * result of each compilation to an output stream.
+ *
+ * <p>Running several compilations in the same process avoids paying for the startup of the JVM,
+ * the class loading and the JIT compilation of D8 for each compilation. The service also shares
+ * the executor service between compilations, and caches the class files of library archives (see
+ * {@link ClassFileArchiveCache}). The cache is owned by the service and is only used by the
+ * compilations of the service.
+ *
+ * <p>The protocol is line based. A request is
+ *
+ * <pre>
+ *   COMPILE &lt;number-of-arguments&gt;
+ *   &lt;d8-argument&gt;
+ *   ...
+ * </pre>
+ *
+ * <p>where the arguments are the command line arguments of D8, one per line. A request is answered
+ * by
+ *
+ * <pre>
+ *   OK|FAILED &lt;number-of-lines&gt;
+ *   &lt;diagnostic&gt;
+ *   ...
+ * </pre>
+ *
+ * <p>where the diagnostics are the errors, warnings and infos reported by the compilation, or by
+ * the single line {@code ERROR <message>} if the request is malformed. The request {@code QUIT}
+ * stops the service.
+ */
+@Keep
+public class D8Server {
+
+  public static final String USAGE_MESSAGE =
+      StringUtils.lines(
+          "Usage: d8server [--thread-count <number>, --port <number>]",
+          "  Reads D8 compilation requests from standard input and writes the results to standard"
+              + " output.",
+          "  --thread-count <number>  # Number of threads shared by all compilations.",
+          "  --port <number>          # Serve requests on a socket bound to the loopback address",
+          "                           # instead of standard input and output.");
+
+  private static final String COMPILE = "COMPILE";
+  private static final String QUIT = "QUIT";
+  private static final String OK = "OK";
+  private static final String FAILED = "FAILED";
+  private static final String ERROR = "ERROR";
+
+  private final ExecutorService executor;
+  private final ClassFileArchiveCache classFileArchiveCache = new ClassFileArchiveCache();
+
+  public D8Server(int threadCount) {
+    this.executor = ThreadUtils.getExecutorService(threadCount);
+  }
+
+  /**
+   * Serves requests from {@code input} until the end of the input or until the request {@code
+   * QUIT}. Failing compilations are answered with their diagnostics and do not stop the service.
+   *
+   * @param input the requests
+   * @param output the responses, which is flushed after each response
+   * @return true if the request {@code QUIT} was read
+   */
+  public boolean serve(Reader input, Writer output) throws IOException {
+    BufferedReader reader = new BufferedReader(input);
+    PrintWriter writer = new PrintWriter(output);
+    String request;
+    try {
+      while ((request = reader.readLine()) != null) {
+        request = request.trim();
+        if (request.isEmpty()) {
+          continue;
+        }
+        if (request.equals(QUIT)) {
+          return true;
+        }
+        serveRequest(request, reader, writer);
+        writer.flush();
+      }
+      return false;
+    } finally {
+      writer.flush();
+    }
+  }
+
+  /** Shuts down the executor service shared by the compilations. */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private void serveRequest(String request, BufferedReader reader, PrintWriter writer)
+      throws IOException {
+    String[] parts = request.split(" ");
+    if (parts.length != 2 || !parts[0].equals(COMPILE)) {
+      writeError(writer, "Invalid request '" + request + "'");
+      return;
+    }
+    int numberOfArguments;
+    try {
+      numberOfArguments = Integer.parseInt(parts[1]);
+    } catch (NumberFormatException e) {
+      numberOfArguments = -1;
+    }
+    if (numberOfArguments < 0) {
+      writeError(writer, "Invalid number of arguments '" + parts[1] + "'");
+      return;
+    }
+    String[] arguments = new String[numberOfArguments];
+    for (int i = 0; i < numberOfArguments; i++) {
+      String argument = reader.readLine();
+      if (argument == null) {
+        writeError(writer, "Unexpected end of input");
+        return;
+      }
+      arguments[i] = argument;
+    }
+    List<String> diagnostics = new ArrayList<>();
+    boolean succeeded = compile(arguments, diagnostics);
+    writer.println((succeeded ? OK : FAILED) + " " + diagnostics.size());
+    diagnostics.forEach(writer::println);
+  }
+
+  private boolean compile(String[] arguments, List<String> diagnostics) {
+    DiagnosticsHandler handler = new CollectingDiagnosticsHandler(diagnostics);
+    try {
+      D8Command.Builder builder = D8Command.builder(handler);
+      builder.getAppBuilder().setClassFileArchiveCache(classFileArchiveCache);
+      D8Command command =
+          new D8CommandParser().parse(arguments, CommandLineOrigin.INSTANCE, builder).build();
+      if (command.isPrintHelp() || command.isPrintVersion()) {
+        diagnostics.add("Info: D8 " + Version.getVersionString());
+        return true;
+      }
+      D8.run(command, executor);
+      return true;
+    } catch (CompilationFailedException e) {
+      // The errors have been reported to the diagnostics handler.
+      return false;
+    }
+  }
+
+  private static void writeError(PrintWriter writer, String message) {
+    writer.println(ERROR + " " + toSingleLine(message));
+  }
+
+  private static String toSingleLine(String message) {
+    return String.valueOf(message).replace('\n', ' ').replace('\r', ' ');
+  }
+
+  private static class CollectingDiagnosticsHandler implements DiagnosticsHandler {
+
+    private final List<String> diagnostics;
+
+    private CollectingDiagnosticsHandler(List<String> diagnostics) {
+      this.diagnostics = diagnostics;
+    }
+
+    private synchronized void add(String kind, Diagnostic diagnostic) {
+      StringBuilder builder = new StringBuilder(kind).append(": ");
+      if (diagnostic.getOrigin() != null && diagnostic.getOrigin() != Origin.unknown()) {
+        builder.append(diagnostic.getOrigin()).append(": ");
+      }
+      diagnostics.add(toSingleLine(builder.append(diagnostic.getDiagnosticMessage()).toString()));
+    }
+
+    @Override
+    public void error(Diagnostic error) {
+      add("Error", error);
+    }
+
+    @Override
+    public void warning(Diagnostic warning) {
+      add("Warning", warning);
+    }
+
+    @Override
+    public void info(Diagnostic info) {
+      add("Info", info);
+    }
+  }
+
+  private void serve(int port) throws IOException {
+    try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+      while (true) {
+        try (Socket socket = serverSocket.accept()) {
+          if (serve(
+              new InputStreamReader(socket.getInputStream(), Charsets.UTF_8),
+              new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8))) {
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The main entry point for running D8 as a service.
+   *
+   * @param args The arguments that describe the service.
+   */
+  public static void main(String... args) throws IOException {
+    ParseContext context = new ParseContext(args);
+    int threadCount = ThreadUtils.NOT_SPECIFIED;
+    int port = -1;
+    while (context.head() != null) {
+      if (OptionsParsing.tryParseBoolean(context, "--help") != null
+          || OptionsParsing.tryParseBoolean(context, "--version") != null) {
+        System.out.println("D8 server " + Version.getVersionString());
+        System.out.print(USAGE_MESSAGE);
+        return;
+      }
+      String value = OptionsParsing.tryParseSingle(context, "--thread-count", null);
+      if (value != null) {
+        threadCount = Integer.parseInt(value);
+        continue;
+      }
+      value = OptionsParsing.tryParseSingle(context, "--port", null);
+      if (value != null) {
+        port = Integer.parseInt(value);
+        continue;
+      }
+      System.err.print(USAGE_MESSAGE);
+      throw new RuntimeException("Invalid argument '" + context.head() + "'");
+    }
+    D8Server server = new D8Server(threadCount);
+    try {
+      if (port >= 0) {
+        server.serve(port);
+      } else {
+        // The compilations may print to System.out, e.g., the timings, so keep the original stdout
+        // for the protocol and redirect everything else to stderr while serving.
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        try {
+          server.serve(
+              new InputStreamReader(System.in, Charsets.UTF_8),
+              new OutputStreamWriter(stdout, Charsets.UTF_8));
+        } finally {
+          System.setOut(stdout);
+        }
+      }
+    } finally {
+      server.shutdown();
+    }
+  }
+}
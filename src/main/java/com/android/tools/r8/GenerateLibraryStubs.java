@@ -0,0 +1,28 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import com.android.tools.r8.utils.LibraryStubs;
+import com.android.tools.r8.utils.StringUtils;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Utility for generating the library stubs of a library jar, such as android.jar. The stubs file
+ * can be passed as a library instead of the jar. It must have the extension {@code .r8stubs}.
+ */
+public class GenerateLibraryStubs {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2 || !LibraryStubs.isLibraryStubsFile(Paths.get(args[1]))) {
+      throw new RuntimeException(
+          StringUtils.joinLines(
+              "Invalid invocation.",
+              "Usage: command <library.jar> <output" + LibraryStubs.EXTENSION + ">"));
+    }
+    Path library = Paths.get(args[0]);
+    Path output = Paths.get(args[1]);
+    LibraryStubs.write(library, output);
+  }
+}
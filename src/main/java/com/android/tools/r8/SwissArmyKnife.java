@@ -37,6 +37,9 @@ public class SwissArmyKnife {
       case "d8":
         D8.main(shift(args));
         break;
+      case "d8server":
+        D8Server.main(shift(args));
+        break;
       case "dexsegments":
         DexSegments.main(shift(args));
         break;
@@ -55,6 +58,9 @@ public class SwissArmyKnife {
       case "jarsizecompare":
         JarSizeCompare.main(shift(args));
         break;
+      case "librarystubs":
+        GenerateLibraryStubs.main(shift(args));
+        break;
       case "maindex":
         GenerateMainDexList.main(shift(args));
         break;
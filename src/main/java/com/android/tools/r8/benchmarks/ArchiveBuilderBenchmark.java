@@ -0,0 +1,112 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.utils.ArchiveBuilder;
+import com.android.tools.r8.utils.ArchiveBuilder.CompressionMode;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Measures writing a multi-dex output archive with each {@link CompressionMode}. The dex files are
+ * added concurrently, as done by the application writer.
+ *
+ * <p>Usage: ArchiveBuilderBenchmark [dex-files-or-directory-of-dex-files | number-of-dex-files]
+ */
+public class ArchiveBuilderBenchmark {
+
+  private static final int DEFAULT_NUMBER_OF_DEX_FILES = 16;
+  private static final int SYNTHETIC_DEX_FILE_SIZE = 8 * 1024 * 1024;
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) throws IOException, ExecutionException {
+    List<byte[]> dexFiles = readOrCreateDexFiles(args);
+    Path output = Files.createTempFile("archive-builder-benchmark", ".zip");
+    ExecutorService executorService = ThreadUtils.getExecutorService(ThreadUtils.NOT_SPECIFIED);
+    try {
+      for (CompressionMode mode : CompressionMode.values()) {
+        // Warm up before measuring.
+        write(output, mode, dexFiles, executorService);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+          write(output, mode, dexFiles, executorService);
+        }
+        BenchmarkUtils.printRuntimeNanoseconds(
+            "ArchiveBuilder" + mode, (System.nanoTime() - start) / ITERATIONS);
+        System.out.println("ArchiveBuilder" + mode + "(Size): " + Files.size(output));
+      }
+    } finally {
+      executorService.shutdown();
+      Files.deleteIfExists(output);
+    }
+  }
+
+  private static List<byte[]> readOrCreateDexFiles(String[] args) throws IOException {
+    List<byte[]> dexFiles = new ArrayList<>();
+    if (args.length > 0 && !args[0].matches("\\d+")) {
+      for (String arg : args) {
+        Path path = Paths.get(arg);
+        if (Files.isDirectory(path)) {
+          List<Path> files = new ArrayList<>();
+          try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.dex")) {
+            stream.forEach(files::add);
+          }
+          Collections.sort(files);
+          for (Path file : files) {
+            dexFiles.add(Files.readAllBytes(file));
+          }
+        } else {
+          dexFiles.add(Files.readAllBytes(path));
+        }
+      }
+      return dexFiles;
+    }
+    int numberOfDexFiles =
+        args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUMBER_OF_DEX_FILES;
+    Random random = new Random(0);
+    for (int i = 0; i < numberOfDexFiles; i++) {
+      // Mix repeated and random data to get a compression ratio similar to dex files.
+      byte[] bytes = new byte[SYNTHETIC_DEX_FILE_SIZE];
+      for (int j = 0; j < bytes.length; j++) {
+        bytes[j] = (byte) (random.nextInt(4) == 0 ? random.nextInt() : j % 97);
+      }
+      dexFiles.add(bytes);
+    }
+    return dexFiles;
+  }
+
+  private static void write(
+      Path output, CompressionMode mode, List<byte[]> dexFiles, ExecutorService executorService)
+      throws ExecutionException {
+    ArchiveBuilder builder = new ArchiveBuilder(output, mode);
+    DiagnosticsHandler handler = new DiagnosticsHandler() {};
+    builder.open();
+    List<Integer> indices = new ArrayList<>();
+    for (int i = 0; i < dexFiles.size(); i++) {
+      indices.add(i);
+    }
+    ThreadUtils.processItems(
+        indices,
+        index ->
+            builder.addIndexedClassFile(
+                index,
+                "classes" + (index == 0 ? "" : index + 1) + ".dex",
+                ByteDataView.of(dexFiles.get(index)),
+                handler),
+        executorService);
+    builder.close(handler);
+  }
+}
@@ -12,4 +12,8 @@ public class BenchmarkUtils {
   public static void printRuntimeMilliseconds(String name, double ms) {
     System.out.println(name + "(RunTime): " + ms + " ms");
   }
+
+  public static void printAllocatedBytes(String name, long bytes) {
+    System.out.println(name + "(Allocation): " + bytes + " bytes");
+  }
 }
@@ -0,0 +1,69 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.D8Server;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Measures repeated small compilations served by a single {@link D8Server}. The first compilation
+ * runs in a cold JVM, and the following compilations reuse the warmed up code, the executor service
+ * and the cached library archive.
+ *
+ * <p>Usage: D8ServerBenchmark [program.jar [android.jar [iterations]]]
+ */
+public class D8ServerBenchmark {
+
+  private static final Path DEFAULT_PROGRAM = Paths.get("build/test/examples/arithmetic.jar");
+  private static final Path DEFAULT_LIBRARY =
+      Paths.get("third_party", "android_jar", "lib-v30", "android.jar");
+  private static final int DEFAULT_ITERATIONS = 100;
+
+  public static void main(String[] args) throws IOException {
+    Path program = args.length > 0 ? Paths.get(args[0]) : DEFAULT_PROGRAM;
+    Path library = args.length > 1 ? Paths.get(args[1]) : DEFAULT_LIBRARY;
+    int iterations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+    Path output = Files.createTempFile("d8server", ".zip");
+    D8Server server = new D8Server(ThreadUtils.NOT_SPECIFIED);
+    try {
+      String request =
+          StringUtils.lines(
+              "COMPILE 6",
+              "--debug",
+              "--lib",
+              library.toString(),
+              "--output",
+              output.toString(),
+              program.toString());
+      long start = System.nanoTime();
+      compile(server, request);
+      BenchmarkUtils.printRuntimeNanoseconds("D8ServerFirst", System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        compile(server, request);
+      }
+      BenchmarkUtils.printRuntimeNanoseconds(
+          "D8ServerWarm", (System.nanoTime() - start) / iterations);
+    } finally {
+      server.shutdown();
+      Files.deleteIfExists(output);
+    }
+  }
+
+  private static void compile(D8Server server, String request) throws IOException {
+    StringWriter response = new StringWriter();
+    server.serve(new StringReader(request), response);
+    if (!response.toString().startsWith("OK")) {
+      throw new RuntimeException("Compilation failed: " + response);
+    }
+  }
+}
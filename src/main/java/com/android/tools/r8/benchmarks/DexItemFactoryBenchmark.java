@@ -0,0 +1,51 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.graph.DexItemFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the construction time of a DexItemFactory, which is paid by every compilation, and the
+ * bytes allocated by the construction when the JVM supports measuring thread allocation.
+ *
+ * <p>Usage: DexItemFactoryBenchmark [iterations]
+ */
+public class DexItemFactoryBenchmark {
+
+  private static final int DEFAULT_ITERATIONS = 1000;
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+    long start = System.nanoTime();
+    DexItemFactory factory = new DexItemFactory();
+    BenchmarkUtils.printRuntimeNanoseconds("DexItemFactoryFirst", System.nanoTime() - start);
+
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      factory = new DexItemFactory();
+    }
+    BenchmarkUtils.printRuntimeNanoseconds(
+        "DexItemFactory", (System.nanoTime() - start) / iterations);
+
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocationBean =
+          (com.sun.management.ThreadMXBean) threadBean;
+      long threadId = Thread.currentThread().getId();
+      long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < iterations; i++) {
+        factory = new DexItemFactory();
+      }
+      long allocatedAfter = allocationBean.getThreadAllocatedBytes(threadId);
+      BenchmarkUtils.printAllocatedBytes(
+          "DexItemFactory", (allocatedAfter - allocatedBefore) / iterations);
+    }
+    // Keep the last factory alive such that its construction is not optimized away.
+    if (factory.booleanDescriptor == null) {
+      throw new AssertionError();
+    }
+  }
+}
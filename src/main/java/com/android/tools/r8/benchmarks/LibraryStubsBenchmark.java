@@ -0,0 +1,96 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.CompilationFailedException;
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexIndexedConsumer;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.LibraryStubs;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Measures the startup of a D8 compilation of a single class with android.jar as library, compared
+ * to the same compilation with the library stubs of android.jar.
+ *
+ * <p>Usage: LibraryStubsBenchmark [android.jar [iterations]]
+ */
+public class LibraryStubsBenchmark {
+
+  private static final Path DEFAULT_LIBRARY =
+      Paths.get("third_party", "android_jar", "lib-v30", "android.jar");
+  private static final int DEFAULT_ITERATIONS = 20;
+
+  public static void main(String[] args) throws IOException, CompilationFailedException {
+    Path library = args.length > 0 ? Paths.get(args[0]) : DEFAULT_LIBRARY;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+    Path stubs = Files.createTempFile("android", LibraryStubs.EXTENSION);
+    try {
+      long start = System.nanoTime();
+      LibraryStubs.write(library, stubs);
+      BenchmarkUtils.printRuntimeNanoseconds("LibraryStubsGenerate", System.nanoTime() - start);
+      byte[] program = createProgramClass();
+      // Warm up both configurations before measuring them.
+      compile(program, library);
+      compile(program, stubs);
+
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        compile(program, library);
+      }
+      BenchmarkUtils.printRuntimeNanoseconds(
+          "LibraryStubsJar", (System.nanoTime() - start) / iterations);
+
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        compile(program, stubs);
+      }
+      BenchmarkUtils.printRuntimeNanoseconds(
+          "LibraryStubsStubs", (System.nanoTime() - start) / iterations);
+    } finally {
+      Files.deleteIfExists(stubs);
+    }
+  }
+
+  private static void compile(byte[] program, Path library) throws CompilationFailedException {
+    D8.run(
+        D8Command.builder()
+            .addClassProgramData(program, Origin.unknown())
+            .addLibraryFiles(library)
+            .setMinApiLevel(21)
+            .setProgramConsumer(DexIndexedConsumer.emptyConsumer())
+            .build());
+  }
+
+  // Creates the class file of: class Main { static void main(String[] args) { println("Hello"); }}
+  private static byte[] createProgramClass() {
+    ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Main", null, "java/lang/Object", null);
+    MethodVisitor method =
+        writer.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+            "main",
+            "([Ljava/lang/String;)V",
+            null,
+            null);
+    method.visitCode();
+    method.visitFieldInsn(
+        Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+    method.visitLdcInsn("Hello");
+    method.visitMethodInsn(
+        Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
+    method.visitInsn(Opcodes.RETURN);
+    method.visitMaxs(0, 0);
+    method.visitEnd();
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+}
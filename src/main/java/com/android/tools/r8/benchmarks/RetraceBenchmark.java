@@ -0,0 +1,69 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.retrace.RetraceOptions;
+import com.android.tools.r8.retrace.StringRetrace;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Measures retracing many independent stack traces against a single mapping file, both
+ * sequentially and concurrently. By default this uses the mapping file and stack trace of
+ * tools/retrace_benchmark.py.
+ *
+ * <p>Usage: RetraceBenchmark [mapping-file stack-trace-file [copies [threads]]]
+ */
+public class RetraceBenchmark {
+
+  private static final Path DEFAULT_DIRECTORY = Paths.get("third_party", "retrace_benchmark");
+  private static final int DEFAULT_COPIES = 100;
+
+  public static void main(String[] args) throws IOException {
+    Path mappingFile =
+        args.length > 0 ? Paths.get(args[0]) : DEFAULT_DIRECTORY.resolve("r8lib.jar.map");
+    Path stackTraceFile =
+        args.length > 1 ? Paths.get(args[1]) : DEFAULT_DIRECTORY.resolve("stacktrace.txt");
+    int copies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_COPIES;
+    int threads =
+        args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+    String mapping = new String(Files.readAllBytes(mappingFile), StandardCharsets.UTF_8);
+    List<String> stackTrace = Files.readAllLines(stackTraceFile, StandardCharsets.UTF_8);
+    List<List<String>> stackTraces = new ArrayList<>(copies);
+    for (int i = 0; i < copies; i++) {
+      stackTraces.add(stackTrace);
+    }
+
+    long start = System.nanoTime();
+    StringRetrace stringRetrace =
+        StringRetrace.create(
+            RetraceOptions.builder().setProguardMapProducer(() -> mapping).build());
+    BenchmarkUtils.printRuntimeNanoseconds("RetraceSetup", System.nanoTime() - start);
+    // Warm up the retracing before measuring it.
+    stringRetrace.retrace(stackTrace);
+
+    start = System.nanoTime();
+    for (List<String> trace : stackTraces) {
+      stringRetrace.retrace(trace);
+    }
+    BenchmarkUtils.printRuntimeNanoseconds("RetraceSequential", System.nanoTime() - start);
+
+    ExecutorService executorService = ThreadUtils.getExecutorService(threads);
+    try {
+      start = System.nanoTime();
+      stringRetrace.retraceAll(stackTraces, executorService);
+      BenchmarkUtils.printRuntimeNanoseconds("RetraceConcurrent", System.nanoTime() - start);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
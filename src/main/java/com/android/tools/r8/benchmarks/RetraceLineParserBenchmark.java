@@ -0,0 +1,86 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.DEFAULT_REGULAR_EXPRESSION;
+
+import com.android.tools.r8.retrace.StackTraceLineParser;
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures parsing of stack trace lines with the default regular expression, both with the hand
+ * written parser for frame lines and with the regular expression alone.
+ *
+ * <p>Usage: RetraceLineParserBenchmark [lines]
+ */
+public class RetraceLineParserBenchmark {
+
+  private static final int DEFAULT_LINES = 1_000_000;
+
+  public static void main(String[] args) {
+    int numberOfLines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+    List<String> lines = createLines(numberOfLines);
+    StackTraceLineParser<String, StackTraceElementStringProxy> defaultParser =
+        StackTraceLineParser.createRegularExpressionParser(DEFAULT_REGULAR_EXPRESSION);
+    // Wrapping the default regular expression disables the hand written parser.
+    StackTraceLineParser<String, StackTraceElementStringProxy> regularExpressionParser =
+        StackTraceLineParser.createRegularExpressionParser(
+            "(?:" + DEFAULT_REGULAR_EXPRESSION + ")");
+    // Warm up both parsers before measuring them.
+    parseAll(defaultParser, lines);
+    parseAll(regularExpressionParser, lines);
+
+    long start = System.nanoTime();
+    parseAll(regularExpressionParser, lines);
+    BenchmarkUtils.printRuntimeNanoseconds(
+        "RetraceLineParserRegularExpression", System.nanoTime() - start);
+
+    start = System.nanoTime();
+    parseAll(defaultParser, lines);
+    BenchmarkUtils.printRuntimeNanoseconds("RetraceLineParserDefault", System.nanoTime() - start);
+  }
+
+  private static List<String> createLines(int numberOfLines) {
+    List<String> lines = new ArrayList<>(numberOfLines);
+    for (int i = 0; i < numberOfLines; i++) {
+      switch (i % 8) {
+        case 0:
+          lines.add("java.lang.IllegalStateException: Failure " + i);
+          break;
+        case 1:
+          lines.add("\tat a.b.c" + (i % 97) + ".a(SourceFile:" + i + ")");
+          break;
+        case 2:
+          lines.add(
+              "01-01 12:00:00.000  1234  5678 E AndroidRuntime: \tat com.example.Foo"
+                  + (i % 13)
+                  + ".bar(Foo.java:"
+                  + (i % 1000)
+                  + ")");
+          break;
+        case 3:
+          lines.add("\tat a.b.c.<init>(Unknown Source)");
+          break;
+        default:
+          lines.add("    at a.a.a" + (i % 31) + ".b(SourceFile:" + (i % 500) + ")");
+          break;
+      }
+    }
+    return lines;
+  }
+
+  private static int parseAll(
+      StackTraceLineParser<String, StackTraceElementStringProxy> parser, List<String> lines) {
+    // Use the result to prevent the parsing from being optimized away.
+    int count = 0;
+    for (String line : lines) {
+      if (parser.parse(line).hasLineNumber()) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
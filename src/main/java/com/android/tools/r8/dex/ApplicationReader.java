@@ -39,6 +39,7 @@ import com.android.tools.r8.utils.ClasspathClassCollection;
 import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.DexVersion;
 import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.LazyArchiveProgramResources;
 import com.android.tools.r8.utils.LibraryClassCollection;
 import com.android.tools.r8.utils.MainDexListParser;
 import com.android.tools.r8.utils.ProgramClassCollection;
@@ -51,6 +52,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -156,10 +158,15 @@ public class ApplicationReader {
       // TODO: try and preload less classes.
       readProguardMap(proguardMap, builder, executorService, futures);
       ClassReader classReader = new ClassReader(executorService, futures);
-      classReader.readSources();
-      hasReadProgramResourcesFromCf = classReader.hasReadProgramResourceFromCf;
-      hasReadProgramResourcesFromDex = classReader.hasReadProgramResourceFromDex;
-      ThreadUtils.awaitFutures(futures);
+      try {
+        classReader.readSources();
+        hasReadProgramResourcesFromCf = classReader.hasReadProgramResourceFromCf;
+        hasReadProgramResourcesFromDex = classReader.hasReadProgramResourceFromDex;
+        ThreadUtils.awaitFutures(futures);
+      } finally {
+        // Close the archives that are kept open for reading the program resources.
+        classReader.closeArchives();
+      }
       classReader.initializeLazyClassCollection(builder);
       for (ProgramResourceProvider provider : inputApp.getProgramResourceProviders()) {
         DataResourceProvider dataResourceProvider = provider.getDataResourceProvider();
@@ -323,21 +330,40 @@ public class ApplicationReader {
     private boolean hasReadProgramResourceFromCf = false;
     private boolean hasReadProgramResourceFromDex = false;
 
+    private Collection<ProgramResource> resources = Collections.emptyList();
+
     ClassReader(ExecutorService executorService, List<Future<?>> futures) {
       this.executorService = executorService;
       this.futures = futures;
     }
 
     private void readDexSources(List<ProgramResource> dexSources, Queue<DexProgramClass> classes)
-        throws IOException, ResourceException {
+        throws IOException, ResourceException, ExecutionException {
       if (dexSources.isEmpty()) {
         return;
       }
       hasReadProgramResourceFromDex = true;
+      // Read the bytes of the resources in parallel, as this may inflate archive entries.
+      Collection<DexReader> dexReaders;
+      try {
+        dexReaders =
+            ThreadUtils.processItemsWithResults(
+                dexSources, input -> new DexReader(input), executorService);
+      } catch (ExecutionException e) {
+        // Rethrow the checked exceptions of reading a resource, such that the failure is reported
+        // with the origin of the resource.
+        Throwable cause = e.getCause();
+        if (cause instanceof ResourceException) {
+          throw (ResourceException) cause;
+        }
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw e;
+      }
       List<DexParser<DexProgramClass>> dexParsers = new ArrayList<>(dexSources.size());
       int computedMinApiLevel = options.minApiLevel;
-      for (ProgramResource input : dexSources) {
-        DexReader dexReader = new DexReader(input);
+      for (DexReader dexReader : dexReaders) {
         if (options.passthroughDexCode) {
           computedMinApiLevel = validateOrComputeMinApiLevel(computedMinApiLevel, dexReader);
         }
@@ -351,6 +377,10 @@ public class ApplicationReader {
       // Read the DexCode items and DexProgramClass items in parallel.
       if (!options.skipReadingDexCode) {
         for (DexParser<DexProgramClass> dexParser : dexParsers) {
+          if (options.enableParallelDexClassParsing) {
+            dexParser.addClassDefsTo(classes::add, executorService, futures);
+            continue;
+          }
           futures.add(
               executorService.submit(
                   () -> {
@@ -381,8 +411,8 @@ public class ApplicationReader {
       }
     }
 
-    void readSources() throws IOException, ResourceException {
-      Collection<ProgramResource> resources = inputApp.computeAllProgramResources();
+    void readSources() throws IOException, ResourceException, ExecutionException {
+      resources = inputApp.computeAllProgramResources();
       List<ProgramResource> dexResources = new ArrayList<>(resources.size());
       List<ProgramResource> cfResources = new ArrayList<>(resources.size());
       for (ProgramResource resource : resources) {
@@ -397,6 +427,10 @@ public class ApplicationReader {
       readClassSources(cfResources, programClasses);
     }
 
+    void closeArchives() throws IOException {
+      LazyArchiveProgramResources.closeArchives(resources);
+    }
+
     private <T extends DexClass> ClassProvider<T> buildClassProvider(
         ClassKind<T> classKind,
         Queue<T> preloadedClasses,
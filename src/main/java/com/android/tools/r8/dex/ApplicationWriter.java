@@ -235,7 +235,7 @@ public class ApplicationWriter {
     timing.begin("DexApplication.write");
     ProguardMapId proguardMapId = null;
     if (proguardMapSupplier != null && options.proguardMapConsumer != null) {
-      proguardMapId = proguardMapSupplier.writeProguardMap();
+      proguardMapId = proguardMapSupplier.writeProguardMap(executorService);
     }
 
     // If we do have a map then we're called from R8. In that case we have at least one marker.
@@ -288,16 +288,22 @@ public class ApplicationWriter {
 
       TimingMerger merger =
           timing.beginMerger("Write files", ThreadUtils.getNumberOfThreads(executorService));
-      Collection<Timing> timings =
-          ThreadUtils.processItemsWithResults(
-              virtualFiles,
-              virtualFile -> {
-                Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
-                writeVirtualFile(virtualFile, fileTiming);
-                fileTiming.end();
-                return fileTiming;
-              },
-              executorService);
+      Collection<Timing> timings;
+      if (options.enableParallelDexSectionWriting) {
+        // The sections of each file are written on the executor, so the files are written one by
+        // one on this thread. Otherwise a task of the executor would wait for other tasks of the
+        // same executor, which can deadlock a fixed size executor.
+        timings = new ArrayList<>(virtualFiles.size());
+        for (VirtualFile virtualFile : virtualFiles) {
+          timings.add(writeVirtualFileWithTiming(virtualFile, executorService));
+        }
+      } else {
+        timings =
+            ThreadUtils.processItemsWithResults(
+                virtualFiles,
+                virtualFile -> writeVirtualFileWithTiming(virtualFile, executorService),
+                executorService);
+      }
       merger.add(timings);
       merger.end();
       // A consumer can manage the generated keep rules.
@@ -314,7 +320,17 @@ public class ApplicationWriter {
     }
   }
 
-  private void writeVirtualFile(VirtualFile virtualFile, Timing timing) {
+  private Timing writeVirtualFileWithTiming(
+      VirtualFile virtualFile, ExecutorService executorService) throws ExecutionException {
+    Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
+    writeVirtualFile(virtualFile, fileTiming, executorService);
+    fileTiming.end();
+    return fileTiming;
+  }
+
+  private void writeVirtualFile(
+      VirtualFile virtualFile, Timing timing, ExecutorService executorService)
+      throws ExecutionException {
     if (virtualFile.isEmpty()) {
       return;
     }
@@ -346,7 +362,8 @@ public class ApplicationWriter {
         rewriteCodeWithJumboStrings(objectMapping, virtualFile.classes(), appView.appInfo().app());
     timing.end();
     timing.begin("Write bytes");
-    ByteBufferResult result = writeDexFile(objectMapping, codeMapping, byteBufferProvider);
+    ByteBufferResult result =
+        writeDexFile(objectMapping, codeMapping, byteBufferProvider, executorService);
     ByteDataView data =
         new ByteDataView(result.buffer.array(), result.buffer.arrayOffset(), result.length);
     timing.end();
@@ -669,7 +686,9 @@ public class ApplicationWriter {
   private ByteBufferResult writeDexFile(
       ObjectToOffsetMapping objectMapping,
       MethodToCodeObjectMapping codeMapping,
-      ByteBufferProvider provider) {
+      ByteBufferProvider provider,
+      ExecutorService executorService)
+      throws ExecutionException {
     FileWriter fileWriter =
         new FileWriter(
             provider,
@@ -682,7 +701,7 @@ public class ApplicationWriter {
     // Collect the non-fixed sections.
     fileWriter.collect();
     // Generate and write the bytes.
-    return fileWriter.generate();
+    return fileWriter.generate(executorService);
   }
 
   private static String mapMainDexListName(DexType type, NamingLens namingLens) {
@@ -28,6 +28,11 @@ public abstract class BinaryReader {
     buffer = CompatByteBuffer.wrap(bytes);
   }
 
+  protected BinaryReader(BinaryReader reader) {
+    this.origin = reader.origin;
+    this.buffer = reader.buffer.duplicate();
+  }
+
   public Origin getOrigin() {
     return origin;
   }
@@ -34,6 +34,11 @@ public class CompatByteBuffer {
     return buffer;
   }
 
+  // Returns a buffer with the same content and byte order, and an independent position.
+  public CompatByteBuffer duplicate() {
+    return new CompatByteBuffer(buffer.duplicate().order(buffer.order()));
+  }
+
   // ----------------------------------------------------------------------------------------------
   // 1.8 compatible calls to java.nio.Buffer methods.
   // ----------------------------------------------------------------------------------------------
@@ -132,4 +137,8 @@ public class CompatByteBuffer {
   public void put(byte[] bytes) {
     asByteBuffer().put(bytes);
   }
+
+  public void put(byte[] bytes, int offset, int length) {
+    asByteBuffer().put(bytes, offset, length);
+  }
 }
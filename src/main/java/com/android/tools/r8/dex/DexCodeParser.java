@@ -0,0 +1,219 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.code.Instruction;
+import com.android.tools.r8.code.InstructionFactory;
+import com.android.tools.r8.graph.DexCode;
+import com.android.tools.r8.graph.DexCode.Try;
+import com.android.tools.r8.graph.DexCode.TryHandler;
+import com.android.tools.r8.graph.DexCode.TryHandler.TypeAddrPair;
+import com.android.tools.r8.graph.DexDebugEvent;
+import com.android.tools.r8.graph.DexDebugInfo;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexString;
+import com.android.tools.r8.graph.OffsetToObjectMapping;
+import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for the code items and debug info items of a DEX file.
+ *
+ * <p>The parser has its own reader of the DEX file, so code items can be parsed independently of
+ * the class definitions, which is used by {@link com.android.tools.r8.graph.LazyDexCode} to parse
+ * code items when the code of a method is first used. Lazy code items of the same file can be
+ * parsed from several threads, so each parse uses its own reader and only the cache of debug info
+ * items is synchronized.
+ */
+public class DexCodeParser {
+
+  private static final int NO_INDEX = -1;
+
+  // Reader of the file, which is only duplicated and never positioned.
+  private final DexReader fileReader;
+  private final OffsetToObjectMapping indexedItems;
+  private final DexItemFactory dexItemFactory;
+
+  // Mapping from offset to debug info item, such that code items share their debug info.
+  private final Int2ReferenceMap<DexDebugInfo> debugInfos = new Int2ReferenceOpenHashMap<>();
+
+  DexCodeParser(
+      DexReader reader, OffsetToObjectMapping indexedItems, DexItemFactory dexItemFactory) {
+    this.fileReader = reader;
+    this.indexedItems = indexedItems;
+    this.dexItemFactory = dexItemFactory;
+  }
+
+  public DexCode parseCodeItemAt(int offset) {
+    DexReader reader = new DexReader(fileReader);
+    reader.position(offset);
+    reader.align(4);
+    return parseCodeItem(reader);
+  }
+
+  private DexCode parseCodeItem(DexReader reader) {
+    int registerSize = reader.getUshort();
+    int insSize = reader.getUshort();
+    int outsSize = reader.getUshort();
+    int triesSize = reader.getUshort();
+    int debugInfoOff = reader.getUint();
+    int insnsSize = reader.getUint();
+    short[] code = new short[insnsSize];
+    Try[] tries = new Try[triesSize];
+    TryHandler[] handlers = new TryHandler[0];
+
+    if (insnsSize != 0) {
+      for (int i = 0; i < insnsSize; i++) {
+        code[i] = reader.getShort();
+      }
+      if (insnsSize % 2 != 0) {
+        reader.getUshort();  // Skip padding ushort
+      }
+      if (triesSize > 0) {
+        Int2IntArrayMap handlerMap = new Int2IntArrayMap();
+        // tries: try_item[tries_size].
+        for (int i = 0; i < triesSize; i++) {
+          int startAddr = reader.getUint();
+          int insnCount = reader.getUshort();
+          int handlerOff = reader.getUshort();
+          tries[i] = new Try(startAddr, insnCount, handlerOff);
+        }
+        // handlers: encoded_catch_handler_list
+        int encodedCatchHandlerListPosition = reader.position();
+        // - size: uleb128
+        int size = reader.getUleb128();
+        handlers = new TryHandler[size];
+        // - list: encoded_catch_handler[handlers_size]
+        for (int i = 0; i < size; i++) {
+          // encoded_catch_handler
+          int encodedCatchHandlerOffset = reader.position() - encodedCatchHandlerListPosition;
+          handlerMap.put(encodedCatchHandlerOffset, i);
+          // - size:	sleb128
+          int hsize = reader.getSleb128();
+          int realHsize = Math.abs(hsize);
+          // - handlers	encoded_type_addr_pair[abs(size)]
+          TryHandler.TypeAddrPair[] pairs = new TryHandler.TypeAddrPair[realHsize];
+          for (int j = 0; j < realHsize; j++) {
+            int typeIdx = reader.getUleb128();
+            int addr = reader.getUleb128();
+            pairs[j] = new TypeAddrPair(indexedItems.getType(typeIdx), addr);
+          }
+          int catchAllAddr = -1;
+          if (hsize <= 0) {
+            catchAllAddr = reader.getUleb128();
+          }
+          handlers[i] = new TryHandler(pairs, catchAllAddr);
+        }
+        // Convert the handler offsets inside the Try objects to indexes.
+        for (Try t : tries) {
+          t.setHandlerIndex(handlerMap);
+        }
+      }
+    }
+    DexDebugInfo debugInfo = debugInfoAt(debugInfoOff, reader);
+    InstructionFactory factory = new InstructionFactory();
+    Instruction[] instructions =
+        factory.readSequenceFrom(ShortBuffer.wrap(code), 0, code.length, indexedItems);
+    return new DexCode(registerSize, insSize, outsSize, instructions, tries, handlers, debugInfo);
+  }
+
+  private DexDebugInfo debugInfoAt(int offset, DexReader reader) {
+    if (offset == 0) {
+      return null;
+    }
+    DexDebugInfo debugInfo;
+    synchronized (debugInfos) {
+      debugInfo = debugInfos.get(offset);
+    }
+    if (debugInfo == null) {
+      reader.position(offset);
+      debugInfo = parseDebugInfo(reader);
+      synchronized (debugInfos) {
+        // Keep the debug info of a concurrent parse, such that code items share their debug info.
+        DexDebugInfo existing = debugInfos.putIfAbsent(offset, debugInfo);
+        if (existing != null) {
+          debugInfo = existing;
+        }
+      }
+    }
+    return debugInfo;
+  }
+
+  private DexDebugInfo parseDebugInfo(DexReader reader) {
+    int start = reader.getUleb128();
+    int parametersSize = reader.getUleb128();
+    DexString[] parameters = new DexString[parametersSize];
+    for (int i = 0; i < parametersSize; i++) {
+      int index = reader.getUleb128p1();
+      if (index != NO_INDEX) {
+        parameters[i] = indexedItems.getString(index);
+      }
+    }
+    List<DexDebugEvent> events = new ArrayList<>();
+    for (int head = reader.getUbyte(); head != Constants.DBG_END_SEQUENCE; head = reader.getUbyte()) {
+      switch (head) {
+        case Constants.DBG_ADVANCE_PC:
+          events.add(dexItemFactory.createAdvancePC(reader.getUleb128()));
+          break;
+        case Constants.DBG_ADVANCE_LINE:
+          events.add(dexItemFactory.createAdvanceLine(reader.getSleb128()));
+          break;
+        case Constants.DBG_START_LOCAL: {
+          int registerNum = reader.getUleb128();
+          int nameIdx = reader.getUleb128p1();
+          int typeIdx = reader.getUleb128p1();
+          events.add(new DexDebugEvent.StartLocal(
+              registerNum,
+              nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
+              typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
+              null));
+          break;
+        }
+        case Constants.DBG_START_LOCAL_EXTENDED: {
+          int registerNum = reader.getUleb128();
+          int nameIdx = reader.getUleb128p1();
+          int typeIdx = reader.getUleb128p1();
+          int sigIdx = reader.getUleb128p1();
+          events.add(new DexDebugEvent.StartLocal(
+              registerNum,
+              nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
+              typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
+              sigIdx == NO_INDEX ? null : indexedItems.getString(sigIdx)));
+          break;
+        }
+        case Constants.DBG_END_LOCAL: {
+          events.add(dexItemFactory.createEndLocal(reader.getUleb128()));
+          break;
+        }
+        case Constants.DBG_RESTART_LOCAL: {
+          events.add(dexItemFactory.createRestartLocal(reader.getUleb128()));
+          break;
+        }
+        case Constants.DBG_SET_PROLOGUE_END: {
+          events.add(dexItemFactory.createSetPrologueEnd());
+          break;
+        }
+        case Constants.DBG_SET_EPILOGUE_BEGIN: {
+          events.add(dexItemFactory.createSetEpilogueBegin());
+          break;
+        }
+        case Constants.DBG_SET_FILE: {
+          int nameIdx = reader.getUleb128p1();
+          DexString sourceFile = nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx);
+          events.add(dexItemFactory.createSetFile(sourceFile));
+          break;
+        }
+        default: {
+          assert head >= 0x0a && head <= 0xff;
+          events.add(dexItemFactory.createDefault(head));
+        }
+      }
+    }
+    return new DexDebugInfo(start, parameters, events.toArray(DexDebugEvent.EMPTY_ARRAY));
+  }
+}
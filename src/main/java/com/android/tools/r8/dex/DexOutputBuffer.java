@@ -33,9 +33,17 @@ public class DexOutputBuffer {
     this(new ByteBufferProvider() {});
   }
 
+  DexOutputBuffer(int initialSize) {
+    this(new ByteBufferProvider() {}, initialSize);
+  }
+
   public DexOutputBuffer(ByteBufferProvider byteBufferProvider) {
+    this(byteBufferProvider, DEFAULT_BUFFER_SIZE);
+  }
+
+  private DexOutputBuffer(ByteBufferProvider byteBufferProvider, int initialSize) {
     this.byteBufferProvider = byteBufferProvider;
-    byteBuffer = allocateByteBuffer(DEFAULT_BUFFER_SIZE);
+    byteBuffer = allocateByteBuffer(initialSize);
   }
 
   private void ensureSpaceFor(int bytes) {
@@ -139,6 +147,11 @@ public class DexOutputBuffer {
     byteBuffer.put(bytes);
   }
 
+  public void putBytes(byte[] bytes, int offset, int length) {
+    ensureSpaceFor(length);
+    byteBuffer.put(bytes, offset, length);
+  }
+
   public void putShort(short aShort) {
     ensureSpaceFor(Short.BYTES);
     byteBuffer.putShort(aShort);
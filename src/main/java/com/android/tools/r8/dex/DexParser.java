@@ -9,23 +9,16 @@ import static com.android.tools.r8.utils.EncodedValueUtils.parseSigned;
 import static com.android.tools.r8.utils.EncodedValueUtils.parseUnsigned;
 
 import com.android.tools.r8.ProgramResource.Kind;
-import com.android.tools.r8.code.Instruction;
-import com.android.tools.r8.code.InstructionFactory;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.ApplicationReaderMap;
 import com.android.tools.r8.graph.ClassAccessFlags;
 import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.Code;
 import com.android.tools.r8.graph.DexAnnotation;
 import com.android.tools.r8.graph.DexAnnotationElement;
 import com.android.tools.r8.graph.DexAnnotationSet;
 import com.android.tools.r8.graph.DexCallSite;
 import com.android.tools.r8.graph.DexClass;
-import com.android.tools.r8.graph.DexCode;
-import com.android.tools.r8.graph.DexCode.Try;
-import com.android.tools.r8.graph.DexCode.TryHandler;
-import com.android.tools.r8.graph.DexCode.TryHandler.TypeAddrPair;
-import com.android.tools.r8.graph.DexDebugEvent;
-import com.android.tools.r8.graph.DexDebugInfo;
 import com.android.tools.r8.graph.DexEncodedAnnotation;
 import com.android.tools.r8.graph.DexEncodedArray;
 import com.android.tools.r8.graph.DexEncodedField;
@@ -57,23 +50,23 @@ import com.android.tools.r8.graph.GenericSignature.ClassSignature;
 import com.android.tools.r8.graph.GenericSignature.FieldTypeSignature;
 import com.android.tools.r8.graph.GenericSignature.MethodTypeSignature;
 import com.android.tools.r8.graph.InnerClassAttribute;
+import com.android.tools.r8.graph.LazyDexCode;
 import com.android.tools.r8.graph.MethodAccessFlags;
 import com.android.tools.r8.graph.OffsetToObjectMapping;
 import com.android.tools.r8.graph.ParameterAnnotationsList;
 import com.android.tools.r8.logging.Log;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.IntObjConsumer;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.Pair;
 import com.google.common.io.ByteStreams;
-import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ShortBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -81,12 +74,20 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class DexParser<T extends DexClass> {
 
   private final int NO_INDEX = -1;
+
+  // Number of class definitions parsed by a single task when the class definitions of a file are
+  // parsed concurrently.
+  private static final int CLASS_DEFS_PER_CHUNK = 256;
   private final Origin origin;
   private DexReader dexReader;
   private final DexSection[] dexSections;
@@ -114,6 +115,7 @@ public class DexParser<T extends DexClass> {
     indexedItems = null;
     codes = null;
     offsetMap = null;
+    codeParser = null;
     dexReader = null;
     stringIDs = null;
   }
@@ -122,7 +124,10 @@ public class DexParser<T extends DexClass> {
   private OffsetToObjectMapping indexedItems = new OffsetToObjectMapping();
 
   // Mapping from offset to code item;
-  private Int2ReferenceMap<DexCode> codes = new Int2ReferenceOpenHashMap<>();
+  private Int2ReferenceMap<Code> codes = new Int2ReferenceOpenHashMap<>();
+
+  // Parser of the code items, which has its own reader of the file.
+  private DexCodeParser codeParser;
 
   // Mapping from offset to dex item;
   private Int2ReferenceMap<Object> offsetMap = new Int2ReferenceOpenHashMap<>();
@@ -140,11 +145,35 @@ public class DexParser<T extends DexClass> {
     parseStringIDs();
     this.classKind = classKind;
     this.options = options;
+    this.codeParser = new DexCodeParser(new DexReader(dexReader), indexedItems, dexItemFactory);
+  }
+
+  // Creates a parser for a chunk of the class definitions of the file of the given parser. The
+  // chunk parser has its own reader, and it shares the indexed items and the caches of code and
+  // offset items with the parser of the file.
+  private DexParser(DexParser<T> parser) {
+    this.origin = parser.origin;
+    this.dexReader = new DexReader(parser.dexReader);
+    this.dexSections = parser.dexSections;
+    this.stringIDs = parser.stringIDs;
+    this.classKind = parser.classKind;
+    this.options = parser.options;
+    this.checksums = parser.checksums;
+    this.dexItemFactory = parser.dexItemFactory;
+    this.indexedItems = parser.indexedItems;
+    this.codes = parser.codes;
+    this.offsetMap = parser.offsetMap;
+    // Lazy code items are parsed by the code parser of the file. Otherwise the code items are
+    // parsed by the chunk, which needs its own reader.
+    this.codeParser =
+        options.enableLazyDexCodeParsing
+            ? parser.codeParser
+            : new DexCodeParser(new DexReader(dexReader), indexedItems, dexItemFactory);
   }
 
-  private void ensureCodesInited(int offset) {
+  private Code codeAt(int offset) {
     if (offset == 0) {
-      return;
+      return null;
     }
 
     if (codes == null) {
@@ -153,21 +182,33 @@ public class DexParser<T extends DexClass> {
 
     if (classKind == ClassKind.LIBRARY) {
       // Ignore contents of library files.
-      return;
+      return null;
     }
     DexSection dexSection = lookupSection(Constants.TYPE_CODE_ITEM);
     if (dexSection.length == 0) {
-      return;
+      return null;
     }
 
-    if (!codes.containsKey(offset)) {
-      int currentPos = dexReader.position();
-      dexReader.position(offset);
-      dexReader.align(4);
-      DexCode code = parseCodeItem();
-      codes.put(offset, code);  // Update the file local offset to code mapping.
-      dexReader.position(currentPos);
+    // The map is shared with the parsers of the other chunks of the file, see addClassDefsTo.
+    Code code;
+    synchronized (codes) {
+      code = codes.get(offset);
+    }
+    if (code == null) {
+      code =
+          options.enableLazyDexCodeParsing
+              ? new LazyDexCode(offset, codeParser)
+              : codeParser.parseCodeItemAt(offset);
+      synchronized (codes) {
+        Code existing = codes.get(offset);
+        if (existing != null) {
+          // The code item has been parsed concurrently by another chunk.
+          return existing;
+        }
+        codes.put(offset, code);  // Update the file local offset to code mapping.
+      }
     }
+    return code;
   }
 
   private DexTypeList parseTypeList() {
@@ -433,16 +474,25 @@ public class DexParser<T extends DexClass> {
     if (offset == 0) {
       return null;  // return null for offset zero.
     }
-    Object result = offsetMap.get(offset);
+    // The map is shared with the parsers of the other chunks of the file, see addClassDefsTo.
+    Object result;
+    synchronized (offsetMap) {
+      result = offsetMap.get(offset);
+    }
     if (result != null) {
       return result;  // return the cached result.
     }
     // Cache is empty so parse the structure.
     dexReader.position(offset);
     result = function.get();
-    // Update the map.
-    offsetMap.put(offset, result);
-    assert offsetMap.get(offset) == result;
+    // Update the map, unless the structure has been parsed concurrently by another chunk.
+    synchronized (offsetMap) {
+      Object existing = offsetMap.get(offset);
+      if (existing != null) {
+        return existing;
+      }
+      offsetMap.put(offset, result);
+    }
     return result;
   }
 
@@ -517,83 +567,6 @@ public class DexParser<T extends DexClass> {
         parameters);
   }
 
-  private DexDebugInfo debugInfoAt(int offset) {
-    return (DexDebugInfo) cacheAt(offset, this::parseDebugInfo);
-  }
-
-  private DexDebugInfo parseDebugInfo() {
-    int start = dexReader.getUleb128();
-    int parametersSize = dexReader.getUleb128();
-    DexString[] parameters = new DexString[parametersSize];
-    for (int i = 0; i < parametersSize; i++) {
-      int index = dexReader.getUleb128p1();
-      if (index != NO_INDEX) {
-        parameters[i] = indexedItems.getString(index);
-      }
-    }
-    List<DexDebugEvent> events = new ArrayList<>();
-    for (int head = dexReader.getUbyte(); head != Constants.DBG_END_SEQUENCE; head = dexReader.getUbyte()) {
-      switch (head) {
-        case Constants.DBG_ADVANCE_PC:
-          events.add(dexItemFactory.createAdvancePC(dexReader.getUleb128()));
-          break;
-        case Constants.DBG_ADVANCE_LINE:
-          events.add(dexItemFactory.createAdvanceLine(dexReader.getSleb128()));
-          break;
-        case Constants.DBG_START_LOCAL: {
-          int registerNum = dexReader.getUleb128();
-          int nameIdx = dexReader.getUleb128p1();
-          int typeIdx = dexReader.getUleb128p1();
-          events.add(new DexDebugEvent.StartLocal(
-              registerNum,
-              nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
-              typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
-              null));
-          break;
-        }
-        case Constants.DBG_START_LOCAL_EXTENDED: {
-          int registerNum = dexReader.getUleb128();
-          int nameIdx = dexReader.getUleb128p1();
-          int typeIdx = dexReader.getUleb128p1();
-          int sigIdx = dexReader.getUleb128p1();
-          events.add(new DexDebugEvent.StartLocal(
-              registerNum,
-              nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
-              typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
-              sigIdx == NO_INDEX ? null : indexedItems.getString(sigIdx)));
-          break;
-        }
-        case Constants.DBG_END_LOCAL: {
-          events.add(dexItemFactory.createEndLocal(dexReader.getUleb128()));
-          break;
-        }
-        case Constants.DBG_RESTART_LOCAL: {
-          events.add(dexItemFactory.createRestartLocal(dexReader.getUleb128()));
-          break;
-        }
-        case Constants.DBG_SET_PROLOGUE_END: {
-          events.add(dexItemFactory.createSetPrologueEnd());
-          break;
-        }
-        case Constants.DBG_SET_EPILOGUE_BEGIN: {
-          events.add(dexItemFactory.createSetEpilogueBegin());
-          break;
-        }
-        case Constants.DBG_SET_FILE: {
-          int nameIdx = dexReader.getUleb128p1();
-          DexString sourceFile = nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx);
-          events.add(dexItemFactory.createSetFile(sourceFile));
-          break;
-        }
-        default: {
-          assert head >= 0x0a && head <= 0xff;
-          events.add(dexItemFactory.createDefault(head));
-        }
-      }
-    }
-    return new DexDebugInfo(start, parameters, events.toArray(DexDebugEvent.EMPTY_ARRAY));
-  }
-
   private static class MemberAnnotationIterator<R extends DexMember<?, R>, T extends DexItem> {
 
     private int index = 0;
@@ -672,11 +645,10 @@ public class DexParser<T extends DexClass> {
       methodIndex += dexReader.getUleb128();
       MethodAccessFlags accessFlags = MethodAccessFlags.fromDexAccessFlags(dexReader.getUleb128());
       int codeOff = dexReader.getUleb128();
-      DexCode code = null;
+      Code code = null;
       if (!skipCodes) {
-        ensureCodesInited(codeOff);
-        assert codeOff == 0 || codes.get(codeOff) != null;
-        code = codes.get(codeOff);
+        code = codeAt(codeOff);
+        assert codeOff == 0 || code != null;
       }
       DexMethod method = indexedItems.getMethod(methodIndex);
       accessFlags.setConstructor(method, dexItemFactory);
@@ -707,45 +679,111 @@ public class DexParser<T extends DexClass> {
     return methods;
   }
 
+  private static class ClassDefs {
+
+    private final int length;
+    private final int[] classIndices;
+    private final int[] accessFlags;
+    private final int[] superclassIndices;
+    private final int[] interfacesOffsets;
+    private final int[] sourceFileIndices;
+    private final int[] annotationsOffsets;
+    private final int[] classDataOffsets;
+    private final int[] staticValuesOffsets;
+
+    private ClassDefs(int length) {
+      this.length = length;
+      classIndices = new int[length];
+      accessFlags = new int[length];
+      superclassIndices = new int[length];
+      interfacesOffsets = new int[length];
+      sourceFileIndices = new int[length];
+      annotationsOffsets = new int[length];
+      classDataOffsets = new int[length];
+      staticValuesOffsets = new int[length];
+    }
+  }
+
   void addClassDefsTo(Consumer<T> classCollection) {
+    addClassDefsTo(readClassDefs(), classCollection);
+  }
+
+  /**
+   * Adds the classes of the file to {@code classCollection} like {@link #addClassDefsTo(Consumer)},
+   * but parses chunks of the class definitions concurrently. The tasks are added to {@code
+   * futures}. The classes are added in the order of the class definitions of the file by the task
+   * that completes last.
+   */
+  void addClassDefsTo(
+      Consumer<T> classCollection, ExecutorService executorService, List<Future<?>> futures) {
+    ClassDefs classDefs = readClassDefs();
+    int length = classDefs.length;
+    if (length <= CLASS_DEFS_PER_CHUNK) {
+      futures.add(executorService.submit(() -> addClassDefsTo(classDefs, classCollection)));
+      return;
+    }
+    AtomicReferenceArray<T> classes = new AtomicReferenceArray<>(length);
+    AtomicInteger remainingChunks =
+        new AtomicInteger((length + CLASS_DEFS_PER_CHUNK - 1) / CLASS_DEFS_PER_CHUNK);
+    for (int start = 0; start < length; start += CLASS_DEFS_PER_CHUNK) {
+      int chunkStart = start;
+      int chunkEnd = Math.min(start + CLASS_DEFS_PER_CHUNK, length);
+      DexParser<T> chunkParser = start == 0 ? this : new DexParser<>(this);
+      futures.add(
+          executorService.submit(
+              () -> {
+                chunkParser.parseClassDefs(classDefs, chunkStart, chunkEnd, classes::set);
+                if (remainingChunks.decrementAndGet() == 0) {
+                  for (int i = 0; i < length; i++) {
+                    T clazz = classes.get(i);
+                    if (clazz != null) {
+                      classCollection.accept(clazz);
+                    }
+                  }
+                }
+              }));
+    }
+  }
+
+  private void addClassDefsTo(ClassDefs classDefs, Consumer<T> classCollection) {
+    parseClassDefs(classDefs, 0, classDefs.length, (index, clazz) -> classCollection.accept(clazz));
+  }
+
+  private ClassDefs readClassDefs() {
     final DexSection dexSection = lookupSection(Constants.TYPE_CLASS_DEF_ITEM);
     final int length = dexSection.length;
     indexedItems.initializeClasses(length);
+    ClassDefs classDefs = new ClassDefs(length);
     if (length == 0) {
-      return;
+      return classDefs;
     }
     dexReader.position(dexSection.offset);
 
-    int[] classIndices = new int[length];
-    int[] accessFlags = new int[length];
-    int[] superclassIndices = new int[length];
-    int[] interfacesOffsets = new int[length];
-    int[] sourceFileIndices = new int[length];
-    int[] annotationsOffsets = new int[length];
-    int[] classDataOffsets = new int[length];
-    int[] staticValuesOffsets = new int[length];
-
     for (int i = 0; i < length; i++) {
       if (Log.ENABLED) {
         Log.verbose(getClass(), "Reading ClassDef @ 0x%08x.", dexReader.position());
       }
-      classIndices[i] = dexReader.getUint();
-      accessFlags[i] = dexReader.getUint();
-      superclassIndices[i] = dexReader.getInt();
-      interfacesOffsets[i] = dexReader.getUint();
-      sourceFileIndices[i] = dexReader.getInt();
-      annotationsOffsets[i] = dexReader.getUint();
-      classDataOffsets[i] = dexReader.getUint();
-      staticValuesOffsets[i] = dexReader.getUint();
-    }
+      classDefs.classIndices[i] = dexReader.getUint();
+      classDefs.accessFlags[i] = dexReader.getUint();
+      classDefs.superclassIndices[i] = dexReader.getInt();
+      classDefs.interfacesOffsets[i] = dexReader.getUint();
+      classDefs.sourceFileIndices[i] = dexReader.getInt();
+      classDefs.annotationsOffsets[i] = dexReader.getUint();
+      classDefs.classDataOffsets[i] = dexReader.getUint();
+      classDefs.staticValuesOffsets[i] = dexReader.getUint();
+    }
+    return classDefs;
+  }
 
-    for (int i = 0; i < length; i++) {
-      int superclassIdx = superclassIndices[i];
+  private void parseClassDefs(
+      ClassDefs classDefs, int start, int end, IntObjConsumer<T> classCollection) {
+    for (int i = start; i < end; i++) {
+      int superclassIdx = classDefs.superclassIndices[i];
       DexType superclass = superclassIdx == NO_INDEX ? null : indexedItems.getType(superclassIdx);
-      int srcIdx = sourceFileIndices[i];
+      int srcIdx = classDefs.sourceFileIndices[i];
       DexString source = srcIdx == NO_INDEX ? null : indexedItems.getString(srcIdx);
-      DexType type = indexedItems.getType(classIndices[i]);
-      ClassAccessFlags flags = ClassAccessFlags.fromDexAccessFlags(accessFlags[i]);
+      DexType type = indexedItems.getType(classDefs.classIndices[i]);
+      ClassAccessFlags flags = ClassAccessFlags.fromDexAccessFlags(classDefs.accessFlags[i]);
       // Check if constraints from
       // https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1 are met.
       if (!flags.areValid(Constants.CORRESPONDING_CLASS_FILE_VERSION, false)) {
@@ -756,7 +794,8 @@ public class DexParser<T extends DexClass> {
       DexEncodedField[] instanceFields = DexEncodedField.EMPTY_ARRAY;
       DexEncodedMethod[] directMethods = DexEncodedMethod.EMPTY_ARRAY;
       DexEncodedMethod[] virtualMethods = DexEncodedMethod.EMPTY_ARRAY;
-      AnnotationsDirectory annotationsDirectory = annotationsDirectoryAt(annotationsOffsets[i]);
+      AnnotationsDirectory annotationsDirectory =
+          annotationsDirectoryAt(classDefs.annotationsOffsets[i]);
 
       Long checksum = null;
       if (checksums != null && !checksums.isEmpty()) {
@@ -766,10 +805,10 @@ public class DexParser<T extends DexClass> {
           continue;
         }
       }
-      if (classDataOffsets[i] != 0) {
-        DexEncodedArray staticValues = encodedArrayAt(staticValuesOffsets[i]);
+      if (classDefs.classDataOffsets[i] != 0) {
+        DexEncodedArray staticValues = encodedArrayAt(classDefs.staticValuesOffsets[i]);
 
-        dexReader.position(classDataOffsets[i]);
+        dexReader.position(classDefs.classDataOffsets[i]);
         int staticFieldsSize = dexReader.getUleb128();
         int instanceFieldsSize = dexReader.getUleb128();
         int directMethodsSize = dexReader.getUleb128();
@@ -806,7 +845,7 @@ public class DexParser<T extends DexClass> {
               origin,
               flags,
               superclass,
-              typeListAt(interfacesOffsets[i]),
+              typeListAt(classDefs.interfacesOffsets[i]),
               source,
               null,
               Collections.emptyList(),
@@ -820,7 +859,7 @@ public class DexParser<T extends DexClass> {
               virtualMethods,
               dexItemFactory.getSkipNameValidationForTesting(),
               checksumSupplier);
-      classCollection.accept(clazz);  // Update the application object.
+      classCollection.accept(i, clazz);  // Update the application object.
     }
   }
 
@@ -887,75 +926,6 @@ public class DexParser<T extends DexClass> {
     return result;
   }
 
-  private DexCode parseCodeItem() {
-    int registerSize = dexReader.getUshort();
-    int insSize = dexReader.getUshort();
-    int outsSize = dexReader.getUshort();
-    int triesSize = dexReader.getUshort();
-    int debugInfoOff = dexReader.getUint();
-    int insnsSize = dexReader.getUint();
-    short[] code = new short[insnsSize];
-    Try[] tries = new Try[triesSize];
-    TryHandler[] handlers = new TryHandler[0];
-
-    if (insnsSize != 0) {
-      for (int i = 0; i < insnsSize; i++) {
-        code[i] = dexReader.getShort();
-      }
-      if (insnsSize % 2 != 0) {
-        dexReader.getUshort();  // Skip padding ushort
-      }
-      if (triesSize > 0) {
-        Int2IntArrayMap handlerMap = new Int2IntArrayMap();
-        // tries: try_item[tries_size].
-        for (int i = 0; i < triesSize; i++) {
-          int startAddr = dexReader.getUint();
-          int insnCount = dexReader.getUshort();
-          int handlerOff = dexReader.getUshort();
-          tries[i] = new Try(startAddr, insnCount, handlerOff);
-        }
-        // handlers: encoded_catch_handler_list
-        int encodedCatchHandlerListPosition = dexReader.position();
-        // - size: uleb128
-        int size = dexReader.getUleb128();
-        handlers = new TryHandler[size];
-        // - list: encoded_catch_handler[handlers_size]
-        for (int i = 0; i < size; i++) {
-          // encoded_catch_handler
-          int encodedCatchHandlerOffset = dexReader.position() - encodedCatchHandlerListPosition;
-          handlerMap.put(encodedCatchHandlerOffset, i);
-          // - size:	sleb128
-          int hsize = dexReader.getSleb128();
-          int realHsize = Math.abs(hsize);
-          // - handlers	encoded_type_addr_pair[abs(size)]
-          TryHandler.TypeAddrPair[] pairs = new TryHandler.TypeAddrPair[realHsize];
-          for (int j = 0; j < realHsize; j++) {
-            int typeIdx = dexReader.getUleb128();
-            int addr = dexReader.getUleb128();
-            pairs[j] = new TypeAddrPair(indexedItems.getType(typeIdx), addr);
-          }
-          int catchAllAddr = -1;
-          if (hsize <= 0) {
-            catchAllAddr = dexReader.getUleb128();
-          }
-          handlers[i] = new TryHandler(pairs, catchAllAddr);
-        }
-        // Convert the handler offsets inside the Try objects to indexes.
-        for (Try t : tries) {
-          t.setHandlerIndex(handlerMap);
-        }
-      }
-    }
-    // Store and restore offset information around reading debug info.
-    int saved = dexReader.position();
-    DexDebugInfo debugInfo = debugInfoAt(debugInfoOff);
-    dexReader.position(saved);
-    InstructionFactory factory = new InstructionFactory();
-    Instruction[] instructions =
-        factory.readSequenceFrom(ShortBuffer.wrap(code), 0, code.length, indexedItems);
-    return new DexCode(registerSize, insSize, outsSize, instructions, tries, handlers, debugInfo);
-  }
-
   void populateIndexTables() {
     // Populate structures that are already sorted upon read.
     populateStrings();  // Depends on nothing.
@@ -38,6 +38,16 @@ public class DexReader extends BinaryReader {
     version = parseMagic(buffer);
   }
 
+  /**
+   * Returns a reader of the same content with an independent position.
+   *
+   * @param reader the reader to duplicate, which must have its byte order set
+   */
+  DexReader(DexReader reader) {
+    super(reader);
+    version = reader.version;
+  }
+
   // Parse the magic header and determine the dex file version.
   private DexVersion parseMagic(CompatByteBuffer buffer) {
     try {
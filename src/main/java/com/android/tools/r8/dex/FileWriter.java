@@ -62,6 +62,8 @@ import com.android.tools.r8.utils.DexVersion;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.IterableUtils;
 import com.android.tools.r8.utils.LebUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
@@ -76,9 +78,12 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.ToIntFunction;
 import java.util.zip.Adler32;
@@ -98,6 +103,23 @@ public class FileWriter {
     }
   }
 
+  /** Code items written to a separate buffer, with the offset of each item in that buffer. */
+  private static class CodeItemsChunk {
+
+    private final DexOutputBuffer buffer;
+    private final List<DexCode> codes;
+    private final int[] offsets;
+
+    private CodeItemsChunk(DexOutputBuffer buffer, List<DexCode> codes, int[] offsets) {
+      this.buffer = buffer;
+      this.codes = codes;
+      this.offsets = offsets;
+    }
+  }
+
+  // Number of code items that are written to the same buffer when writing code concurrently.
+  private static final int CODE_ITEMS_CHUNK_SIZE = 256;
+
   private final ObjectToOffsetMapping mapping;
   private final MethodToCodeObjectMapping codeMapping;
   private final AppInfo appInfo;
@@ -170,7 +192,7 @@ public class FileWriter {
     return this;
   }
 
-  public ByteBufferResult generate() {
+  public ByteBufferResult generate(ExecutorService executorService) throws ExecutionException {
     // Check restrictions on interface methods.
     checkInterfaceMethods();
 
@@ -194,12 +216,18 @@ public class FileWriter {
       // Ensure deterministic ordering of debug info by sorting consistent with the code objects.
       layout.setDebugInfosOffset(dest.align(1));
       Set<DexDebugInfo> seen = new HashSet<>(mixedSectionOffsets.getDebugInfos().size());
+      List<DexDebugInfo> debugInfos = new ArrayList<>(mixedSectionOffsets.getDebugInfos().size());
       for (ProgramDexCode code : codes) {
         DexDebugInfoForWriting info = code.getCode().getDebugInfoForWriting();
         if (info != null && seen.add(info)) {
-          writeDebugItem(info, graphLens);
+          debugInfos.add(info);
         }
       }
+      if (options.enableParallelDexSectionWriting) {
+        writeDebugItemsConcurrently(debugInfos, executorService);
+      } else {
+        debugInfos.forEach(this::writeDebugItem);
+      }
     }
 
     // Remember the typelist offset for later.
@@ -208,7 +236,11 @@ public class FileWriter {
     // Now output the code.
     dest.moveTo(layout.getCodesOffset());
     assert dest.isAligned(4);
-    writeItems(codes, layout::alreadySetOffset, this::writeCodeItem, 4);
+    if (options.enableParallelDexSectionWriting) {
+      writeCodeItemsConcurrently(codes, executorService);
+    } else {
+      writeItems(codes, layout::alreadySetOffset, this::writeCodeItem, 4);
+    }
     assert layout.getDebugInfosOffset() == 0 || dest.position() == layout.getDebugInfosOffset();
 
     // Now the type lists and rest.
@@ -492,66 +524,121 @@ public class FileWriter {
     dest.putInt(mixedSectionOffsets.getOffsetFor(staticFieldValues.get(clazz)));
   }
 
-  private void writeDebugItem(DexDebugInfo debugInfo, GraphLens graphLens) {
+  private void writeDebugItem(DexDebugInfo debugInfo) {
+    writeDebugItem(debugInfo, new DebugBytecodeWriter(debugInfo, mapping, graphLens).generate());
+  }
+
+  private void writeDebugItem(DexDebugInfo debugInfo, byte[] encoding) {
     mixedSectionOffsets.setOffsetFor(debugInfo, dest.position());
-    dest.putBytes(new DebugBytecodeWriter(debugInfo, mapping, graphLens).generate());
+    dest.putBytes(encoding);
+  }
+
+  private void writeDebugItemsConcurrently(
+      List<DexDebugInfo> debugInfos, ExecutorService executorService) throws ExecutionException {
+    // The encoding of a debug info item does not depend on its position, so all items are encoded
+    // up front and then appended in the deterministic order.
+    Collection<byte[]> encodings =
+        ThreadUtils.processItemsWithResults(
+            debugInfos,
+            debugInfo -> new DebugBytecodeWriter(debugInfo, mapping, graphLens).generate(),
+            executorService);
+    Iterator<DexDebugInfo> debugInfoIterator = debugInfos.iterator();
+    for (byte[] encoding : encodings) {
+      writeDebugItem(debugInfoIterator.next(), encoding);
+    }
+    assert !debugInfoIterator.hasNext();
   }
 
   private void writeCodeItem(ProgramDexCode code) {
-    writeCodeItem(code.getCode(), code.getMethod());
+    DexCode dexCode = code.getCode();
+    mixedSectionOffsets.setOffsetFor(dexCode, writeCodeItem(dexCode, code.getMethod(), dest));
+  }
+
+  private void writeCodeItemsConcurrently(
+      List<ProgramDexCode> codes, ExecutorService executorService) throws ExecutionException {
+    // Each chunk of code items is written to its own buffer starting at a 4-byte aligned offset.
+    // Since code items only contain offsets relative to their own start and the section is
+    // 4-byte aligned, copying the chunks to 4-byte aligned positions in the destination yields
+    // the same bytes and padding as writing the items one by one.
+    Collection<CodeItemsChunk> chunks =
+        ThreadUtils.processItemsWithResults(
+            Lists.partition(codes, CODE_ITEMS_CHUNK_SIZE),
+            this::writeCodeItemsChunk,
+            executorService);
+    for (CodeItemsChunk chunk : chunks) {
+      int chunkOffset = dest.align(4);
+      dest.putBytes(chunk.buffer.asArray(), 0, chunk.buffer.position());
+      for (int i = 0; i < chunk.codes.size(); i++) {
+        mixedSectionOffsets.setOffsetFor(chunk.codes.get(i), chunkOffset + chunk.offsets[i]);
+      }
+    }
+  }
+
+  private CodeItemsChunk writeCodeItemsChunk(List<ProgramDexCode> codes) {
+    DexOutputBuffer buffer = new DexOutputBuffer(sizeOfCodeItems(codes));
+    List<DexCode> dexCodes = new ArrayList<>(codes.size());
+    int[] offsets = new int[codes.size()];
+    for (int i = 0; i < codes.size(); i++) {
+      ProgramDexCode code = codes.get(i);
+      dexCodes.add(code.getCode());
+      offsets[i] = writeCodeItem(code.getCode(), code.getMethod(), buffer);
+    }
+    return new CodeItemsChunk(buffer, dexCodes, offsets);
   }
 
-  private void writeCodeItem(DexCode code, ProgramMethod method) {
-    mixedSectionOffsets.setOffsetFor(code, dest.align(4));
+  /** Writes the code item to the given buffer and returns its 4-byte aligned start offset. */
+  private int writeCodeItem(DexCode code, ProgramMethod method, DexOutputBuffer buffer) {
+    int codeOffset = buffer.align(4);
     // Fixed size header information.
-    dest.putShort((short) code.registerSize);
-    dest.putShort((short) code.incomingRegisterSize);
-    dest.putShort((short) code.outgoingRegisterSize);
-    dest.putShort((short) code.tries.length);
-    dest.putInt(mixedSectionOffsets.getOffsetFor(code.getDebugInfoForWriting()));
+    buffer.putShort((short) code.registerSize);
+    buffer.putShort((short) code.incomingRegisterSize);
+    buffer.putShort((short) code.outgoingRegisterSize);
+    buffer.putShort((short) code.tries.length);
+    buffer.putInt(mixedSectionOffsets.getOffsetFor(code.getDebugInfoForWriting()));
     // Jump over the size.
-    int insnSizeOffset = dest.position();
-    dest.forward(4);
+    int insnSizeOffset = buffer.position();
+    buffer.forward(4);
     // Write instruction stream.
-    dest.putInstructions(code, method, mapping, desugaredLibraryCodeToKeep);
+    buffer.putInstructions(code, method, mapping, desugaredLibraryCodeToKeep);
     // Compute size and do the backward/forward dance to write the size at the beginning.
-    int insnSize = dest.position() - insnSizeOffset - 4;
-    dest.rewind(insnSize + 4);
-    dest.putInt(insnSize / 2);
-    dest.forward(insnSize);
+    int insnSize = buffer.position() - insnSizeOffset - 4;
+    buffer.rewind(insnSize + 4);
+    buffer.putInt(insnSize / 2);
+    buffer.forward(insnSize);
     if (code.tries.length > 0) {
       // The tries need to be 4 byte aligned.
-      int beginOfTriesOffset = dest.align(4);
+      int beginOfTriesOffset = buffer.align(4);
       // First write the handlers, so that we know their mixedSectionOffsets.
-      dest.forward(code.tries.length * 8);
-      int beginOfHandlersOffset = dest.position();
-      dest.putUleb128(code.handlers.length);
+      buffer.forward(code.tries.length * 8);
+      int beginOfHandlersOffset = buffer.position();
+      buffer.putUleb128(code.handlers.length);
       short[] offsets = new short[code.handlers.length];
       int i = 0;
       for (TryHandler handler : code.handlers) {
-        offsets[i++] = (short) (dest.position() - beginOfHandlersOffset);
+        offsets[i++] = (short) (buffer.position() - beginOfHandlersOffset);
         boolean hasCatchAll = handler.catchAllAddr != TryHandler.NO_HANDLER;
-        dest.putSleb128(hasCatchAll ? -handler.pairs.length : handler.pairs.length);
+        buffer.putSleb128(hasCatchAll ? -handler.pairs.length : handler.pairs.length);
         for (TypeAddrPair pair : handler.pairs) {
-          dest.putUleb128(mapping.getOffsetFor(pair.getType(graphLens)));
-          dest.putUleb128(pair.addr);
+          buffer.putUleb128(mapping.getOffsetFor(pair.getType(graphLens)));
+          buffer.putUleb128(pair.addr);
           desugaredLibraryCodeToKeep.recordClass(pair.getType(graphLens));
         }
         if (hasCatchAll) {
-          dest.putUleb128(handler.catchAllAddr);
+          buffer.putUleb128(handler.catchAllAddr);
         }
       }
-      int endOfCodeOffset = dest.position();
+      int endOfCodeOffset = buffer.position();
       // Now write the tries.
-      dest.moveTo(beginOfTriesOffset);
+      buffer.moveTo(beginOfTriesOffset);
       for (Try aTry : code.tries) {
-        dest.putInt(aTry.startAddress);
-        dest.putShort((short) aTry.instructionCount);
-        dest.putShort(offsets[aTry.handlerIndex]);
+        buffer.putInt(aTry.startAddress);
+        buffer.putShort((short) aTry.instructionCount);
+        buffer.putShort(offsets[aTry.handlerIndex]);
       }
       // And move to the end.
-      dest.moveTo(endOfCodeOffset);
+      buffer.moveTo(endOfCodeOffset);
     }
+    return codeOffset;
   }
 
   private void writeTypeList(DexTypeList list) {
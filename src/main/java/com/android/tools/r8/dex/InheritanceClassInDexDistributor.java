@@ -4,17 +4,22 @@
 
 package com.android.tools.r8.dex;
 
+import com.android.tools.r8.dex.VirtualFile.ClassIds;
 import com.android.tools.r8.dex.VirtualFile.VirtualFileCycler;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.AppView;
 import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexMethod;
 import com.android.tools.r8.graph.DexProgramClass;
 import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.graph.GraphLens;
 import com.android.tools.r8.graph.InitClassLens;
 import com.android.tools.r8.naming.NamingLens;
+import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
@@ -22,6 +27,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -70,14 +76,15 @@ public class InheritanceClassInDexDistributor {
     }
 
     public void updateNumbersOfIds() {
-      // Use a temporary VirtualFile to evaluate the number of ids in the group.
-      VirtualFile virtualFile = new VirtualFile(0, appView, graphLens, initClassLens, namingLens);
+      // Use the precomputed ids of the members to evaluate the number of ids in the group.
+      Set<DexMethod> methodIds = Sets.newIdentityHashSet();
+      Set<DexField> fieldIds = Sets.newIdentityHashSet();
       // Note: sort not needed.
       for (DexProgramClass clazz : members) {
-        virtualFile.addClass(clazz);
+        classIds.get(clazz).forEachId(methodIds::add, fieldIds::add);
       }
-      numberOfFieldIds = virtualFile.getNumberOfFields();
-      numberOfMethodIds = virtualFile.getNumberOfMethods();
+      numberOfFieldIds = fieldIds.size();
+      numberOfMethodIds = methodIds.size();
     }
 
     public boolean canFitInOneDex() {
@@ -290,6 +297,7 @@ public class InheritanceClassInDexDistributor {
   private final InitClassLens initClassLens;
   private final NamingLens namingLens;
   private final DirectSubClassesInfo directSubClasses;
+  private final Map<DexProgramClass, ClassIds> classIds = new IdentityHashMap<>();
 
   public InheritanceClassInDexDistributor(
       VirtualFile mainDex,
@@ -314,7 +322,15 @@ public class InheritanceClassInDexDistributor {
     directSubClasses = new DirectSubClassesInfo(appView, classes);
   }
 
-  public void distribute() {
+  public void distribute() throws ExecutionException {
+    // Compute the ids of each class once, so that the ids of groups and whether classes fit in a
+    // dex can be evaluated without adding the classes to a dex in a transaction.
+    for (ClassIds ids :
+        ClassIds.computeAll(
+            classes, appView, graphLens, initClassLens, namingLens, executorService)) {
+      classIds.put(ids.getClazz(), ids);
+    }
+
     List<ClassGroup> remainingInheritanceGroups = collectInheritanceGroups();
     // Sort to ensure reproducible allocation
     remainingInheritanceGroups.sort(null);
@@ -445,9 +461,7 @@ public class InheritanceClassInDexDistributor {
       usedDex.add(dexForLayer);
       for (DexProgramClass dexProgramClass : getSortedCopy(group.members)) {
         while (true) {
-          dexForLayer.addClass(dexProgramClass);
-          if (dexForLayer.isFull()) {
-            dexForLayer.abortTransaction();
+          if (!canFit(dexForLayer, dexProgramClass)) {
             if (dexForLayer.isEmpty()) {
               // The class is too big to fit in one dex
               throw new CompilationError("Class '" + dexProgramClass.toSourceString()
@@ -463,6 +477,8 @@ public class InheritanceClassInDexDistributor {
             currentExclude.add(dexForLayer);
             usedDex.add(dexForLayer);
           } else {
+            dexForLayer.addClass(dexProgramClass);
+            assert !dexForLayer.isFull();
             dexForLayer.commitTransaction();
             break;
           }
@@ -602,18 +618,17 @@ public class InheritanceClassInDexDistributor {
     int totalClasses = classes.size();
     int assignedClasses = 0;
     int dexInitialSize = dex.classes().size();
+    if (!dex.canFitAll(ListUtils.map(classes, classIds::get))) {
+      if (dex.isFull(DEX_FULL_ENOUGH_THRESHOLD)) {
+        markDexFull(dex);
+      }
+      return false;
+    }
     for (DexProgramClass clazz : classes) {
       dex.addClass(clazz);
       assignedClasses++;
-      if (dex.isFull()) {
-        dex.abortTransaction();
-        if (dex.isFull(DEX_FULL_ENOUGH_THRESHOLD)) {
-          markDexFull(dex);
-        }
-        assert dexInitialSize == dex.classes().size();
-        return false;
-      }
     }
+    assert !dex.isFull();
     dex.commitTransaction();
     assert totalClasses == assignedClasses
       && dexInitialSize + assignedClasses == dex.classes().size();
@@ -640,9 +655,7 @@ public class InheritanceClassInDexDistributor {
         if (currentDexIsTooFull || hasDirectInheritanceInCollection(clazz, toProcess)) {
           remaining.add(clazz);
         } else {
-          dex.addClass(clazz);
-          if (dex.isFull()) {
-            dex.abortTransaction();
+          if (!canFit(dex, clazz)) {
             if (dex.isEmpty()) {
               // The class is too big to fit in one dex
               throw new CompilationError("Class '" + clazz.toSourceString() + "' from "
@@ -655,6 +668,8 @@ public class InheritanceClassInDexDistributor {
               currentDexIsTooFull = true;
             }
           } else {
+            dex.addClass(clazz);
+            assert !dex.isFull();
             assignedClasses++;
             dex.commitTransaction();
           }
@@ -723,6 +738,10 @@ public class InheritanceClassInDexDistributor {
     return searchFrom;
   }
 
+  private boolean canFit(VirtualFile dex, DexProgramClass clazz) {
+    return dex.getNumberOfNewIdsIfFits(classIds.get(clazz)) >= 0;
+  }
+
   private void markDexFull(VirtualFile dex) {
     fullDex.set(dex.getId());
   }
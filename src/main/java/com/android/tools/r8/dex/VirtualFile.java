@@ -34,6 +34,7 @@ import com.android.tools.r8.utils.FileUtils;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.Reporter;
 import com.android.tools.r8.utils.SetUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
@@ -54,6 +55,7 @@ import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -246,6 +248,65 @@ public class VirtualFile {
     return isFull(MAX_ENTRIES);
   }
 
+  /**
+   * Returns the number of method and field ids that adding the class would add to this file, or -1
+   * if the class does not fit. Unlike adding the class in a transaction this does not need to visit
+   * the class.
+   */
+  int getNumberOfNewIdsIfFits(ClassIds ids) {
+    assert transaction.isEmpty();
+    int numberOfNewMethods =
+        countNewIds(ids.methods, indexedItems.methods, MAX_ENTRIES - getNumberOfMethods());
+    if (numberOfNewMethods < 0) {
+      return -1;
+    }
+    int numberOfNewFields =
+        countNewIds(ids.fields, indexedItems.fields, MAX_ENTRIES - getNumberOfFields());
+    if (numberOfNewFields < 0) {
+      return -1;
+    }
+    return numberOfNewMethods + numberOfNewFields;
+  }
+
+  /**
+   * Returns true if all the classes fit in this file together. Ids shared between the classes are
+   * only counted once.
+   */
+  boolean canFitAll(Collection<ClassIds> classIds) {
+    assert transaction.isEmpty();
+    Set<DexMethod> newMethods = Sets.newIdentityHashSet();
+    Set<DexField> newFields = Sets.newIdentityHashSet();
+    int methodCapacity = MAX_ENTRIES - getNumberOfMethods();
+    int fieldCapacity = MAX_ENTRIES - getNumberOfFields();
+    for (ClassIds ids : classIds) {
+      for (DexMethod method : ids.methods) {
+        if (!indexedItems.methods.contains(method)
+            && newMethods.add(method)
+            && newMethods.size() > methodCapacity) {
+          return false;
+        }
+      }
+      for (DexField field : ids.fields) {
+        if (!indexedItems.fields.contains(field)
+            && newFields.add(field)
+            && newFields.size() > fieldCapacity) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static <T> int countNewIds(T[] ids, Set<T> existing, int capacity) {
+    int numberOfNewIds = 0;
+    for (T id : ids) {
+      if (!existing.contains(id) && ++numberOfNewIds > capacity) {
+        return -1;
+      }
+    }
+    return numberOfNewIds;
+  }
+
   public int getNumberOfMethods() {
     return transaction.getNumberOfMethods();
   }
@@ -536,7 +597,7 @@ public class VirtualFile {
     }
 
     @Override
-    public List<VirtualFile> run() throws IOException {
+    public List<VirtualFile> run() throws ExecutionException, IOException {
       int totalClassNumber = classes.size();
       // First fill required classes into the main dex file.
       fillForMainDexList(classes);
@@ -578,18 +639,32 @@ public class VirtualFile {
         // Sort the remaining classes based on the original names.
         // This with make classes from the same package be adjacent.
         classes = sortClassesByPackage(classes, originalNames);
-        new PackageSplitPopulator(
-                filesForDistribution,
-                appView,
-                classes,
-                originalNames,
-                fillStrategy,
-                fileIndexOffset,
-                writer.graphLens,
-                writer.initClassLens,
-                writer.namingLens,
-                options)
-            .call();
+        if (options.enableBinPackingDexDistribution) {
+          new BinPackingPopulator(
+                  filesForDistribution,
+                  appView,
+                  classes,
+                  fileIndexOffset,
+                  writer.graphLens,
+                  writer.initClassLens,
+                  writer.namingLens,
+                  options,
+                  executorService)
+              .run();
+        } else {
+          new PackageSplitPopulator(
+                  filesForDistribution,
+                  appView,
+                  classes,
+                  originalNames,
+                  fillStrategy,
+                  fileIndexOffset,
+                  writer.graphLens,
+                  writer.initClassLens,
+                  writer.namingLens,
+                  options)
+              .call();
+        }
       }
       addFeatureSplitFiles(featureSplitClasses, fillStrategy);
 
@@ -1197,4 +1272,188 @@ public class VirtualFile {
     }
   }
 
+  /**
+   * Distributes the given classes over as few files as possible.
+   *
+   * <p>The method and field ids that each class contributes to a file are computed up front and
+   * concurrently. The classes are then placed in the given order, each in the open file with which
+   * it shares the most ids among the files that still have room for it. A new file is only added
+   * when the class does not fit in any of the open files.
+   *
+   * <p>Unlike {@link PackageSplitPopulator} this populator does not avoid package splits and does
+   * not leave room for growth, but it results in fewer and fuller files.
+   */
+  private static class BinPackingPopulator {
+
+    /** Files with more method or field ids than this are not considered for further classes. */
+    private static final int FULL_ENOUGH_THRESHOLD = MAX_ENTRIES - 100;
+
+    /**
+     * Maximum number of files that are considered when placing a class. When more files are added
+     * the least recently added file is closed. This bounds the cost of placing a class.
+     */
+    private static final int MAX_OPEN_FILES = 8;
+
+    private final List<VirtualFile> files;
+    private final AppView<?> appView;
+    private final List<DexProgramClass> classes;
+    private final GraphLens graphLens;
+    private final InitClassLens initClassLens;
+    private final NamingLens namingLens;
+    private final InternalOptions options;
+    private final ExecutorService executorService;
+
+    private int nextFileId;
+
+    BinPackingPopulator(
+        List<VirtualFile> files,
+        AppView<?> appView,
+        Set<DexProgramClass> classes,
+        int fileIndexOffset,
+        GraphLens graphLens,
+        InitClassLens initClassLens,
+        NamingLens namingLens,
+        InternalOptions options,
+        ExecutorService executorService) {
+      this.files = files;
+      this.appView = appView;
+      this.classes = new ArrayList<>(classes);
+      this.graphLens = graphLens;
+      this.initClassLens = initClassLens;
+      this.namingLens = namingLens;
+      this.options = options;
+      this.executorService = executorService;
+      this.nextFileId = files.size() + fileIndexOffset;
+    }
+
+    void run() throws ExecutionException {
+      long start = System.nanoTime();
+      Collection<ClassIds> classIds =
+          ClassIds.computeAll(
+              classes, appView, graphLens, initClassLens, namingLens, executorService);
+      long placementStart = System.nanoTime();
+
+      List<VirtualFile> openFiles = new ArrayList<>(files);
+      for (ClassIds ids : classIds) {
+        VirtualFile target = findFileWithMostSharedIds(openFiles, ids);
+        if (target == null) {
+          target = addFile();
+          openFiles.add(target);
+          if (openFiles.size() > MAX_OPEN_FILES) {
+            openFiles.remove(0);
+          }
+          if (target.getNumberOfNewIdsIfFits(ids) < 0) {
+            throw new InternalCompilerError(
+                "Class " + ids.getClazz().toString() + " does not fit into a single dex file.");
+          }
+        }
+        target.addClass(ids.getClazz());
+        target.commitTransaction();
+        assert !target.isFull();
+        if (target.isFull(FULL_ENOUGH_THRESHOLD)) {
+          openFiles.remove(target);
+        }
+      }
+
+      if (Log.ENABLED) {
+        long end = System.nanoTime();
+        Log.info(
+            VirtualFile.class,
+            "Bin packing of %s classes: %sms computing ids, %sms placing classes.",
+            classes.size(),
+            (placementStart - start) / 1000000,
+            (end - placementStart) / 1000000);
+        for (VirtualFile file : files) {
+          Log.info(
+              VirtualFile.class,
+              "File %s: %s classes, %s method ids, %s field ids.",
+              file.getId(),
+              file.getNumberOfClasses(),
+              file.getNumberOfMethods(),
+              file.getNumberOfFields());
+        }
+      }
+    }
+
+    private VirtualFile findFileWithMostSharedIds(List<VirtualFile> openFiles, ClassIds ids) {
+      VirtualFile best = null;
+      int bestNumberOfNewIds = Integer.MAX_VALUE;
+      for (VirtualFile candidate : openFiles) {
+        if (options.testing.limitNumberOfClassesPerDex > 0
+            && candidate.getNumberOfClasses() >= options.testing.limitNumberOfClassesPerDex) {
+          continue;
+        }
+        int numberOfNewIds = candidate.getNumberOfNewIdsIfFits(ids);
+        if (numberOfNewIds >= 0 && numberOfNewIds < bestNumberOfNewIds) {
+          best = candidate;
+          bestNumberOfNewIds = numberOfNewIds;
+          if (numberOfNewIds == 0) {
+            break;
+          }
+        }
+      }
+      return best;
+    }
+
+    private VirtualFile addFile() {
+      VirtualFile file =
+          new VirtualFile(nextFileId++, appView, graphLens, initClassLens, namingLens);
+      files.add(file);
+      return file;
+    }
+  }
+
+  /**
+   * The method and field ids that a class contributes to a file. These are the ids that count
+   * towards the limits of a dex file.
+   */
+  static class ClassIds {
+
+    private final DexProgramClass clazz;
+    private final DexMethod[] methods;
+    private final DexField[] fields;
+
+    private ClassIds(DexProgramClass clazz, DexMethod[] methods, DexField[] fields) {
+      this.clazz = clazz;
+      this.methods = methods;
+      this.fields = fields;
+    }
+
+    /** Computes the ids of each of the given classes concurrently, in the order of the classes. */
+    static Collection<ClassIds> computeAll(
+        Collection<DexProgramClass> classes,
+        AppView<?> appView,
+        GraphLens graphLens,
+        InitClassLens initClassLens,
+        NamingLens namingLens,
+        ExecutorService executorService)
+        throws ExecutionException {
+      LensCodeRewriterUtils rewriter = new LensCodeRewriterUtils(appView, true);
+      return ThreadUtils.processItemsWithResults(
+          classes,
+          clazz -> {
+            VirtualFileIndexedItemCollection collection =
+                new VirtualFileIndexedItemCollection(graphLens, initClassLens, namingLens);
+            clazz.collectIndexedItems(collection, graphLens, rewriter);
+            return new ClassIds(
+                clazz,
+                collection.methods.toArray(new DexMethod[0]),
+                collection.fields.toArray(new DexField[0]));
+          },
+          executorService);
+    }
+
+    DexProgramClass getClazz() {
+      return clazz;
+    }
+
+    void forEachId(Consumer<DexMethod> methodConsumer, Consumer<DexField> fieldConsumer) {
+      for (DexMethod method : methods) {
+        methodConsumer.accept(method);
+      }
+      for (DexField field : fields) {
+        fieldConsumer.accept(field);
+      }
+    }
+  }
 }
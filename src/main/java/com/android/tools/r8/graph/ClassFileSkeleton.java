@@ -0,0 +1,61 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import static com.android.tools.r8.utils.InternalOptions.ASM_VERSION;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * The parsed structure of a class file without code: the names, descriptors, signatures and
+ * access flags of the class and its members, its attributes and annotations.
+ *
+ * <p>The skeleton only consists of strings and constants, so it does not depend on the
+ * DexItemFactory of a compilation and can be shared by repeated compilations of library classes.
+ * Each compilation materializes its own class by replaying the skeleton to the visitor of {@link
+ * JarClassFileReader}, which skips the decoding of the class file.
+ */
+public class ClassFileSkeleton {
+
+  /** Holder of the skeleton of a class file resource, see {@link JarClassFileReader#read}. */
+  public interface Cache {
+
+    /** Returns the skeleton parsed with the given ASM parsing options, or null. */
+    ClassFileSkeleton get(int parsingOptions);
+
+    void put(ClassFileSkeleton skeleton);
+  }
+
+  private final ClassNode node;
+  private final int parsingOptions;
+  private final String marker;
+
+  private ClassFileSkeleton(ClassNode node, int parsingOptions, String marker) {
+    this.node = node;
+    this.parsingOptions = parsingOptions;
+    this.marker = marker;
+  }
+
+  static ClassFileSkeleton parse(ClassReader reader, int parsingOptions, String marker) {
+    ClassNode node = new ClassNode(ASM_VERSION);
+    reader.accept(node, parsingOptions);
+    return new ClassFileSkeleton(node, parsingOptions, marker);
+  }
+
+  public int getParsingOptions() {
+    return parsingOptions;
+  }
+
+  /** The marker string in the constant pool of the class file, or null. */
+  String getMarker() {
+    return marker;
+  }
+
+  // The node is not modified by replaying it, so concurrent compilations can share the skeleton.
+  void accept(ClassVisitor visitor) {
+    node.accept(visitor);
+  }
+}
@@ -205,6 +205,9 @@ public class DexCode extends Code implements StructuralItem<DexCode> {
 
   @Override
   public boolean computeEquals(Object other) {
+    if (other instanceof LazyDexCode) {
+      other = ((LazyDexCode) other).asDexCode();
+    }
     return Equatable.equalsImpl(this, other);
   }
 
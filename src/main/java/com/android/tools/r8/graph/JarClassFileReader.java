@@ -87,14 +87,59 @@ public class JarClassFileReader<T extends DexClass> {
   }
 
   public void read(ProgramResource resource) throws ResourceException {
+    if (classKind == ClassKind.LIBRARY && resource instanceof ClassFileSkeleton.Cache) {
+      // Library classes do not retain the class file, so they can be created from a skeleton that
+      // is shared with other compilations.
+      read(resource, (ClassFileSkeleton.Cache) resource);
+      return;
+    }
     read(resource.getOrigin(), resource.getBytes());
   }
 
+  private void read(ProgramResource resource, ClassFileSkeleton.Cache cache)
+      throws ResourceException {
+    Origin origin = resource.getOrigin();
+    int parsingOptions = getParsingOptions();
+    ClassFileSkeleton skeleton = cache.get(parsingOptions);
+    if (skeleton == null) {
+      byte[] bytes = resource.getBytes();
+      skeleton =
+          ExceptionUtils.withOriginAttachmentHandler(
+              origin,
+              () -> {
+                ClassReader reader = createClassReader(origin, bytes);
+                return ClassFileSkeleton.parse(reader, parsingOptions, readMarker(reader));
+              });
+      cache.put(skeleton);
+    }
+    ClassFileSkeleton parsedSkeleton = skeleton;
+    ExceptionUtils.withOriginAttachmentHandler(
+        origin,
+        () -> {
+          parsedSkeleton.accept(
+              new CreateDexClassVisitor<>(origin, classKind, null, application, classConsumer));
+          if (parsedSkeleton.getMarker() != null) {
+            application.getFactory().createString(parsedSkeleton.getMarker());
+          }
+        });
+  }
+
   public void read(Origin origin, byte[] bytes) {
     ExceptionUtils.withOriginAttachmentHandler(origin, () -> internalRead(origin, bytes));
   }
 
   public void internalRead(Origin origin, byte[] bytes) {
+    ClassReader reader = createClassReader(origin, bytes);
+    reader.accept(
+        new CreateDexClassVisitor<>(origin, classKind, reader.b, application, classConsumer),
+        getParsingOptions());
+    String marker = readMarker(reader);
+    if (marker != null) {
+      application.getFactory().createString(marker);
+    }
+  }
+
+  private static ClassReader createClassReader(Origin origin, byte[] bytes) {
     if (bytes.length < CLASSFILE_HEADER.length) {
       throw new CompilationError("Invalid empty classfile", origin);
     }
@@ -103,9 +148,10 @@ public class JarClassFileReader<T extends DexClass> {
         throw new CompilationError("Invalid classfile header", origin);
       }
     }
+    return new ClassReader(bytes);
+  }
 
-    ClassReader reader = new ClassReader(bytes);
-
+  private int getParsingOptions() {
     int parsingOptions = SKIP_FRAMES | SKIP_CODE;
 
     // If the source-file and source-debug-extension attributes are not kept we can skip all debug
@@ -117,11 +163,10 @@ public class JarClassFileReader<T extends DexClass> {
         parsingOptions |= SKIP_DEBUG;
       }
     }
-    reader.accept(
-        new CreateDexClassVisitor<>(origin, classKind, reader.b, application, classConsumer),
-        parsingOptions);
+    return parsingOptions;
+  }
 
-    // Read marker.
+  private static String readMarker(ClassReader reader) {
     if (reader.getItemCount() > CfApplicationWriter.MARKER_STRING_CONSTANT_POOL_INDEX
         && reader.getItem(CfApplicationWriter.MARKER_STRING_CONSTANT_POOL_INDEX) > 0) {
       try {
@@ -130,12 +175,13 @@ public class JarClassFileReader<T extends DexClass> {
                 CfApplicationWriter.MARKER_STRING_CONSTANT_POOL_INDEX,
                 new char[reader.getMaxStringLength()]);
         if (maybeMarker instanceof String) {
-          application.getFactory().createString((String) maybeMarker);
+          return (String) maybeMarker;
         }
       } catch (IllegalArgumentException e) {
         // Ignore if the type of the constant is not something readConst() allows.
       }
     }
+    return null;
   }
 
   private static int cleanAccessFlags(int access) {
@@ -0,0 +1,141 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.dex.DexCodeParser;
+import com.android.tools.r8.dex.MixedSectionCollection;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.code.NumberGenerator;
+import com.android.tools.r8.ir.code.Position;
+import com.android.tools.r8.ir.conversion.MethodProcessor;
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.origin.Origin;
+
+/**
+ * Code of a method read from a DEX file, which is parsed from the code item of the file when the
+ * code is first used.
+ *
+ * <p>Until then, only the offset of the code item is retained, and the instructions, try blocks
+ * and debug info are not created. Methods that share a code item in the input share the lazy code,
+ * and thus the parsed code.
+ */
+public class LazyDexCode extends Code {
+
+  private final int offset;
+  private DexCodeParser parser;
+  private volatile DexCode code;
+
+  public LazyDexCode(int offset, DexCodeParser parser) {
+    this.offset = offset;
+    this.parser = parser;
+  }
+
+  @Override
+  public boolean isDexCode() {
+    return true;
+  }
+
+  @Override
+  public DexCode asDexCode() {
+    DexCode result = code;
+    if (result == null) {
+      synchronized (this) {
+        result = code;
+        if (result == null) {
+          result = parser.parseCodeItemAt(offset);
+          code = result;
+          // Release the parser, which retains the content of the DEX file.
+          parser = null;
+        }
+      }
+    }
+    return result;
+  }
+
+  public boolean hasBeenParsed() {
+    return code != null;
+  }
+
+  @Override
+  protected int computeHashCode() {
+    return asDexCode().hashCode();
+  }
+
+  @Override
+  protected boolean computeEquals(Object other) {
+    // DexCode unwraps lazy code on its side, so equality is symmetric.
+    return asDexCode().equals(other);
+  }
+
+  @Override
+  public boolean isEmptyVoidMethod() {
+    return asDexCode().isEmptyVoidMethod();
+  }
+
+  @Override
+  public int estimatedSizeForInlining() {
+    return asDexCode().estimatedSizeForInlining();
+  }
+
+  @Override
+  public int estimatedDexCodeSizeUpperBoundInBytes() {
+    return asDexCode().estimatedDexCodeSizeUpperBoundInBytes();
+  }
+
+  @Override
+  public IRCode buildIR(ProgramMethod method, AppView<?> appView, Origin origin) {
+    return asDexCode().buildIR(method, appView, origin);
+  }
+
+  @Override
+  public IRCode buildInliningIR(
+      ProgramMethod context,
+      ProgramMethod method,
+      AppView<?> appView,
+      NumberGenerator valueNumberGenerator,
+      Position callerPosition,
+      Origin origin,
+      MethodProcessor methodProcessor) {
+    return asDexCode()
+        .buildInliningIR(
+            context,
+            method,
+            appView,
+            valueNumberGenerator,
+            callerPosition,
+            origin,
+            methodProcessor);
+  }
+
+  @Override
+  public void registerCodeReferences(ProgramMethod method, UseRegistry registry) {
+    asDexCode().registerCodeReferences(method, registry);
+  }
+
+  @Override
+  public void registerCodeReferencesForDesugaring(ClasspathMethod method, UseRegistry registry) {
+    asDexCode().registerCodeReferencesForDesugaring(method, registry);
+  }
+
+  @Override
+  void collectMixedSectionItems(MixedSectionCollection collection) {
+    asDexCode().collectMixedSectionItems(collection);
+  }
+
+  @Override
+  public synchronized boolean verifyNoInputReaders() {
+    assert parser == null;
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return asDexCode().toString();
+  }
+
+  @Override
+  public String toString(DexEncodedMethod method, ClassNameMapper naming) {
+    return asDexCode().toString(method, naming);
+  }
+}
@@ -4,26 +4,67 @@
 
 package com.android.tools.r8.horizontalclassmerging;
 
+import com.android.tools.r8.graph.DexProgramClass;
 import com.android.tools.r8.utils.IterableUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
- * This is a simple policy executor that ensures regular sequential execution of policies. It should
- * primarily be readable and correct. The SimplePolicyExecutor should be a reference implementation,
- * against which more efficient policy executors can be compared.
+ * The policy executor runs the policies in sequence. Each policy is applied concurrently: single
+ * class policies are evaluated for chunks of classes in parallel, and multi class policies are
+ * applied to each of the (independent) merge groups in parallel. Policies must therefore be
+ * thread-safe. The resulting groups are deterministic and identical to a sequential execution.
  */
 public class PolicyExecutor {
 
+  // Number of classes that are checked against a single class policy by a single task.
+  private static final int SINGLE_CLASS_POLICY_CHUNK_SIZE = 1024;
+
+  private final ExecutorService executorService;
+
+  public PolicyExecutor(ExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
   // TODO(b/165506334): if performing mutable operation ensure that linked lists are used
-  private void applySingleClassPolicy(SingleClassPolicy policy, LinkedList<MergeGroup> groups) {
+  private void applySingleClassPolicy(SingleClassPolicy policy, LinkedList<MergeGroup> groups)
+      throws ExecutionException {
+    // The policy is evaluated concurrently for chunks of the classes in the groups. The groups are
+    // subsequently pruned sequentially to preserve the order of the classes in each group.
+    List<List<DexProgramClass>> chunks = new ArrayList<>();
+    for (MergeGroup group : groups) {
+      chunks.addAll(
+          Lists.partition(new ArrayList<>(group.getClasses()), SINGLE_CLASS_POLICY_CHUNK_SIZE));
+    }
+    Set<DexProgramClass> ineligibleClasses = Sets.newIdentityHashSet();
+    ThreadUtils.processItemsWithResults(
+            chunks,
+            chunk -> {
+              List<DexProgramClass> ineligibleClassesInChunk = new ArrayList<>();
+              for (DexProgramClass clazz : chunk) {
+                if (!policy.canMerge(clazz)) {
+                  ineligibleClassesInChunk.add(clazz);
+                }
+              }
+              return ineligibleClassesInChunk;
+            },
+            executorService)
+        .forEach(ineligibleClasses::addAll);
     Iterator<MergeGroup> i = groups.iterator();
     while (i.hasNext()) {
       MergeGroup group = i.next();
       int previousNumberOfClasses = group.size();
-      group.removeIf(clazz -> !policy.canMerge(clazz));
+      group.removeIf(ineligibleClasses::contains);
       policy.numberOfRemovedClasses += previousNumberOfClasses - group.size();
       if (group.size() < 2) {
         i.remove();
@@ -32,18 +73,24 @@ public class PolicyExecutor {
   }
 
   private LinkedList<MergeGroup> applyMultiClassPolicy(
-      MultiClassPolicy policy, LinkedList<MergeGroup> groups) {
-    // For each group apply the multi class policy and add all the new groups together.
+      MultiClassPolicy policy, LinkedList<MergeGroup> groups) throws ExecutionException {
+    // For each group apply the multi class policy and add all the new groups together. The groups
+    // are independent, so the policy is applied to each of them concurrently, and the results are
+    // added in the order of the input groups.
+    int previousNumberOfClasses = IterableUtils.sumInt(groups, MergeGroup::size);
+    Collection<Collection<MergeGroup>> policyGroupsPerGroup =
+        ThreadUtils.processItemsWithResults(
+            groups,
+            group -> {
+              Collection<MergeGroup> policyGroups = policy.apply(group);
+              policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
+              return policyGroups;
+            },
+            executorService);
     LinkedList<MergeGroup> newGroups = new LinkedList<>();
-    groups.forEach(
-        group -> {
-          int previousNumberOfClasses = group.size();
-          Collection<MergeGroup> policyGroups = policy.apply(group);
-          policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
-          policy.numberOfRemovedClasses +=
-              previousNumberOfClasses - IterableUtils.sumInt(policyGroups, MergeGroup::size);
-          newGroups.addAll(policyGroups);
-        });
+    policyGroupsPerGroup.forEach(newGroups::addAll);
+    policy.numberOfRemovedClasses +=
+        previousNumberOfClasses - IterableUtils.sumInt(newGroups, MergeGroup::size);
     return newGroups;
   }
 
@@ -53,7 +100,8 @@ public class PolicyExecutor {
    * class groups.
    */
   public Collection<MergeGroup> run(
-      Collection<MergeGroup> inputGroups, Collection<Policy> policies, Timing timing) {
+      Collection<MergeGroup> inputGroups, Collection<Policy> policies, Timing timing)
+      throws ExecutionException {
     LinkedList<MergeGroup> linkedGroups;
 
     if (inputGroups instanceof LinkedList) {
@@ -9,13 +9,13 @@ import com.android.tools.r8.graph.DexClass;
 import com.android.tools.r8.graph.DexProgramClass;
 import com.android.tools.r8.horizontalclassmerging.SingleClassPolicy;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
-import it.unimi.dsi.fastutil.objects.Reference2BooleanMap;
-import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class NoEnums extends SingleClassPolicy {
 
   private final AppView<AppInfoWithLiveness> appView;
-  private final Reference2BooleanMap<DexClass> cache = new Reference2BooleanOpenHashMap<>();
+  private final Map<DexClass, Boolean> cache = new ConcurrentHashMap<>();
 
   public NoEnums(AppView<AppInfoWithLiveness> appView) {
     this.appView = appView;
@@ -43,8 +43,9 @@ public class NoEnums extends SingleClassPolicy {
   }
 
   private boolean isEnumSubtype(DexClass clazz) {
-    if (cache.containsKey(clazz)) {
-      return cache.getBoolean(clazz);
+    Boolean cachedResult = cache.get(clazz);
+    if (cachedResult != null) {
+      return cachedResult;
     }
     boolean result;
     if (clazz.type == appView.dexItemFactory().objectType) {
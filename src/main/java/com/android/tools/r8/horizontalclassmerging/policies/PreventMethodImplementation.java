@@ -18,9 +18,9 @@ import com.android.tools.r8.horizontalclassmerging.SubtypingForrestForClasses;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.collections.DexMethodSignatureSet;
 import java.util.Collection;
-import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Prevent merging of classes where subclasses contain interface with default methods and the merged
@@ -65,16 +65,20 @@ public class PreventMethodImplementation extends MultiClassPolicy {
   }
 
   private abstract static class SignaturesCache<C extends DexClass> {
-    private final Map<DexClass, DexMethodSignatureSet> memoizedSignatures = new IdentityHashMap<>();
+    private final Map<DexClass, DexMethodSignatureSet> memoizedSignatures =
+        new ConcurrentHashMap<>();
 
     public DexMethodSignatureSet getOrComputeSignatures(C clazz) {
-      return memoizedSignatures.computeIfAbsent(
-          clazz,
-          ignore -> {
-            DexMethodSignatureSet signatures = DexMethodSignatureSet.createLinked();
-            process(clazz, signatures);
-            return signatures;
-          });
+      DexMethodSignatureSet memoized = memoizedSignatures.get(clazz);
+      if (memoized != null) {
+        return memoized;
+      }
+      // The computation recursively populates the cache, thus computeIfAbsent cannot be used. If
+      // the signatures are computed concurrently by two threads then the first result wins.
+      DexMethodSignatureSet signatures = DexMethodSignatureSet.createLinked();
+      process(clazz, signatures);
+      memoized = memoizedSignatures.putIfAbsent(clazz, signatures);
+      return memoized != null ? memoized : signatures;
     }
 
     abstract void process(C clazz, DexMethodSignatureSet signatures);
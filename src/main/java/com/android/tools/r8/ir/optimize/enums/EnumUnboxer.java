@@ -403,7 +403,7 @@ public class EnumUnboxer {
     enumUnboxerRewriter = new EnumUnboxingRewriter(appView, enumDataMap, relocator);
     EnumUnboxingLens enumUnboxingLens =
         new EnumUnboxingTreeFixer(appView, enumsToUnbox, relocator, enumUnboxerRewriter)
-            .fixupTypeReferences();
+            .fixupTypeReferences(executorService);
     enumUnboxerRewriter.setEnumUnboxingLens(enumUnboxingLens);
     appView.setUnboxedEnums(enumDataMap);
     GraphLens previousLens = appView.graphLens();
@@ -69,6 +69,13 @@ class EnumUnboxingLens extends NestedGraphLens {
     private Map<DexMethod, RewrittenPrototypeDescription> prototypeChangesPerMethod =
         new IdentityHashMap<>();
 
+    public void addAll(Builder builder) {
+      typeMap.putAll(builder.typeMap);
+      newFieldSignatures.putAll(builder.newFieldSignatures);
+      newMethodSignatures.putAll(builder.newMethodSignatures);
+      prototypeChangesPerMethod.putAll(builder.prototypeChangesPerMethod);
+    }
+
     public void map(DexType from, DexType to) {
       if (from == to) {
         return;
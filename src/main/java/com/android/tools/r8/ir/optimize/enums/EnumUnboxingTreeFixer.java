@@ -20,14 +20,18 @@ import com.android.tools.r8.ir.analysis.inlining.SimpleInliningConstraint;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.BooleanUtils;
 import com.android.tools.r8.utils.OptionalBool;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 class EnumUnboxingTreeFixer {
 
@@ -51,34 +55,21 @@ class EnumUnboxingTreeFixer {
     this.enumUnboxerRewriter = enumUnboxerRewriter;
   }
 
-  EnumUnboxingLens fixupTypeReferences() {
+  EnumUnboxingLens fixupTypeReferences(ExecutorService executorService)
+      throws ExecutionException {
     assert enumUnboxerRewriter != null;
-    // Fix all methods and fields using enums to unbox.
-    for (DexProgramClass clazz : appView.appInfo().classes()) {
-      if (enumsToUnbox.contains(clazz.type)) {
-        // Clear the initializers and move the static methods to the new location.
-        Set<DexEncodedMethod> methodsToRemove = Sets.newIdentityHashSet();
-        clazz
-            .methods()
-            .forEach(
-                m -> {
-                  if (m.isInitializer()) {
-                    clearEnumToUnboxMethod(m);
-                  } else {
-                    DexType newHolder = relocator.getNewMemberLocationFor(clazz.type);
-                    List<DexEncodedMethod> movedMethods =
-                        unboxedEnumsMethods.computeIfAbsent(newHolder, k -> new ArrayList<>());
-                    movedMethods.add(fixupEncodedMethodToUtility(m, newHolder));
-                    methodsToRemove.add(m);
-                  }
-                });
-        clazz.getMethodCollection().removeMethods(methodsToRemove);
-      } else {
-        clazz
-            .getMethodCollection()
-            .replaceMethods(method -> this.fixupEncodedMethod(clazz, method));
-        fixupFields(clazz.staticFields(), clazz::setStaticField);
-        fixupFields(clazz.instanceFields(), clazz::setInstanceField);
+    // Fix all methods and fields using enums to unbox. The classes are fixed independently and
+    // concurrently, each with its own lens builder. The results are merged in the order of the
+    // classes to keep the order of the moved methods deterministic.
+    Collection<ClassFixupResult> results =
+        ThreadUtils.processItemsWithResults(
+            appView.appInfo().classes(), this::fixupClass, executorService);
+    for (ClassFixupResult result : results) {
+      lensBuilder.addAll(result.lensBuilder);
+      if (!result.movedMethods.isEmpty()) {
+        unboxedEnumsMethods
+            .computeIfAbsent(result.newHolder, k -> new ArrayList<>())
+            .addAll(result.movedMethods);
       }
     }
     for (DexType toUnbox : enumsToUnbox) {
@@ -92,6 +83,44 @@ class EnumUnboxingTreeFixer {
     return lensBuilder.build(appView);
   }
 
+  private static class ClassFixupResult {
+
+    private final EnumUnboxingLens.Builder lensBuilder = EnumUnboxingLens.enumUnboxingLensBuilder();
+    private final List<DexEncodedMethod> movedMethods = new ArrayList<>();
+    private DexType newHolder;
+  }
+
+  private ClassFixupResult fixupClass(DexProgramClass clazz) {
+    ClassFixupResult result = new ClassFixupResult();
+    EnumUnboxingLens.Builder classLensBuilder = result.lensBuilder;
+    if (enumsToUnbox.contains(clazz.type)) {
+      // Clear the initializers and move the static methods to the new location.
+      DexType newHolder = relocator.getNewMemberLocationFor(clazz.type);
+      result.newHolder = newHolder;
+      Set<DexEncodedMethod> methodsToRemove = Sets.newIdentityHashSet();
+      clazz
+          .methods()
+          .forEach(
+              m -> {
+                if (m.isInitializer()) {
+                  clearEnumToUnboxMethod(m);
+                } else {
+                  result.movedMethods.add(
+                      fixupEncodedMethodToUtility(m, newHolder, classLensBuilder));
+                  methodsToRemove.add(m);
+                }
+              });
+      clazz.getMethodCollection().removeMethods(methodsToRemove);
+    } else {
+      clazz
+          .getMethodCollection()
+          .replaceMethods(method -> fixupEncodedMethod(clazz, method, classLensBuilder));
+      fixupFields(clazz.staticFields(), clazz::setStaticField, classLensBuilder);
+      fixupFields(clazz.instanceFields(), clazz::setInstanceField, classLensBuilder);
+    }
+    return result;
+  }
+
   private void clearEnumToUnboxMethod(DexEncodedMethod enumMethod) {
     // The compiler may have references to the enum methods, but such methods will be removed
     // and they cannot be reprocessed since their rewriting through the lensCodeRewriter/
@@ -102,7 +131,7 @@ class EnumUnboxingTreeFixer {
   }
 
   private DexEncodedMethod fixupEncodedMethodToUtility(
-      DexEncodedMethod encodedMethod, DexType newHolder) {
+      DexEncodedMethod encodedMethod, DexType newHolder, EnumUnboxingLens.Builder lensBuilder) {
     DexMethod method = encodedMethod.getReference();
     DexString newMethodName =
         factory.createString(
@@ -112,7 +141,8 @@ class EnumUnboxingTreeFixer {
                 + "$"
                 + method.name.toString());
     DexProto proto = encodedMethod.isStatic() ? method.proto : factory.prependHolderToProto(method);
-    DexMethod newMethod = factory.createMethod(newHolder, fixupProto(proto), newMethodName);
+    DexMethod newMethod =
+        factory.createMethod(newHolder, fixupProto(proto, lensBuilder), newMethodName);
     assert appView.definitionFor(encodedMethod.getHolderType()).lookupMethod(newMethod) == null;
     lensBuilder.move(method, newMethod, encodedMethod.isStatic(), true);
     encodedMethod.accessFlags.promoteToPublic();
@@ -123,9 +153,10 @@ class EnumUnboxingTreeFixer {
         newMethod, builder -> builder.setCompilationState(encodedMethod.getCompilationState()));
   }
 
-  private DexEncodedMethod fixupEncodedMethod(DexProgramClass holder, DexEncodedMethod method) {
+  private DexEncodedMethod fixupEncodedMethod(
+      DexProgramClass holder, DexEncodedMethod method, EnumUnboxingLens.Builder lensBuilder) {
     DexProto oldProto = method.getProto();
-    DexProto newProto = fixupProto(oldProto);
+    DexProto newProto = fixupProto(oldProto, lensBuilder);
     if (newProto == method.getProto()) {
       return method;
     }
@@ -190,14 +221,17 @@ class EnumUnboxingTreeFixer {
     return newMethod;
   }
 
-  private void fixupFields(List<DexEncodedField> fields, DexClass.FieldSetter setter) {
+  private void fixupFields(
+      List<DexEncodedField> fields,
+      DexClass.FieldSetter setter,
+      EnumUnboxingLens.Builder lensBuilder) {
     if (fields == null) {
       return;
     }
     for (int i = 0; i < fields.size(); i++) {
       DexEncodedField encodedField = fields.get(i);
       DexField field = encodedField.getReference();
-      DexType newType = fixupType(field.type);
+      DexType newType = fixupType(field.type, lensBuilder);
       if (newType != field.type) {
         DexField newField = factory.createField(field.holder, newType, field.name);
         lensBuilder.move(field, newField);
@@ -217,16 +251,16 @@ class EnumUnboxingTreeFixer {
     }
   }
 
-  private DexProto fixupProto(DexProto proto) {
-    DexType returnType = fixupType(proto.returnType);
-    DexType[] arguments = fixupTypes(proto.parameters.values);
+  private DexProto fixupProto(DexProto proto, EnumUnboxingLens.Builder lensBuilder) {
+    DexType returnType = fixupType(proto.returnType, lensBuilder);
+    DexType[] arguments = fixupTypes(proto.parameters.values, lensBuilder);
     return factory.createProto(returnType, arguments);
   }
 
-  private DexType fixupType(DexType type) {
+  private DexType fixupType(DexType type, EnumUnboxingLens.Builder lensBuilder) {
     if (type.isArrayType()) {
       DexType base = type.toBaseType(factory);
-      DexType fixed = fixupType(base);
+      DexType fixed = fixupType(base, lensBuilder);
       if (base == fixed) {
         return type;
       }
@@ -240,10 +274,10 @@ class EnumUnboxingTreeFixer {
     return type;
   }
 
-  private DexType[] fixupTypes(DexType[] types) {
+  private DexType[] fixupTypes(DexType[] types, EnumUnboxingLens.Builder lensBuilder) {
     DexType[] result = new DexType[types.length];
     for (int i = 0; i < result.length; i++) {
-      result[i] = fixupType(types[i]);
+      result[i] = fixupType(types[i], lensBuilder);
     }
     return result;
   }
@@ -39,12 +39,14 @@ import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.ir.conversion.LensCodeRewriterUtils;
 import com.android.tools.r8.naming.NamingLens;
 import com.android.tools.r8.naming.ProguardMapSupplier;
+import com.android.tools.r8.naming.ProguardMapSupplier.ProguardMapId;
 import com.android.tools.r8.references.Reference;
 import com.android.tools.r8.synthesis.SyntheticNaming;
 import com.android.tools.r8.utils.AsmUtils;
 import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.PredicateUtils;
+import com.android.tools.r8.utils.ThrowingFunction;
 import com.android.tools.r8.utils.structural.Ordered;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
@@ -53,6 +55,8 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Optional;
 import java.util.SortedSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
@@ -108,8 +112,22 @@ public class CfApplicationWriter {
   }
 
   public void write(ClassFileConsumer consumer) {
+    write(consumer, ProguardMapSupplier::writeProguardMap);
+  }
+
+  public void write(ClassFileConsumer consumer, ExecutorService executorService)
+      throws ExecutionException {
+    write(consumer, supplier -> supplier.writeProguardMap(executorService));
+  }
+
+  private <E extends Throwable> void write(
+      ClassFileConsumer consumer, ThrowingFunction<ProguardMapSupplier, ProguardMapId, E> mapWriter)
+      throws E {
     application.timing.begin("CfApplicationWriter.write");
     try {
+      if (proguardMapSupplier != null && options.proguardMapConsumer != null) {
+        marker.setPgMapId(mapWriter.apply(proguardMapSupplier).get());
+      }
       writeApplication(consumer);
     } finally {
       application.timing.end();
@@ -117,9 +135,6 @@ public class CfApplicationWriter {
   }
 
   private void writeApplication(ClassFileConsumer consumer) {
-    if (proguardMapSupplier != null && options.proguardMapConsumer != null) {
-      marker.setPgMapId(proguardMapSupplier.writeProguardMap().get());
-    }
     Optional<String> markerString =
         marker.isRelocator() ? Optional.empty() : Optional.of(marker.toString());
     LensCodeRewriterUtils rewriter = new LensCodeRewriterUtils(appView);
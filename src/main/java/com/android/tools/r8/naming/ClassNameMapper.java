@@ -18,9 +18,11 @@ import com.android.tools.r8.position.Position;
 import com.android.tools.r8.utils.BiMapContainer;
 import com.android.tools.r8.utils.ChainableStringConsumer;
 import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.io.CharSource;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -29,14 +31,22 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class ClassNameMapper implements ProguardMap {
 
+  // Number of classes formatted concurrently before handing their sections to the consumer.
+  private static final int WRITE_BATCH_SIZE = 1000;
+
   public enum MissingFileAction {
     MISSING_FILE_IS_EMPTY_MAP,
     MISSING_FILE_IS_ERROR
@@ -52,9 +62,12 @@ public class ClassNameMapper implements ProguardMap {
     @Override
     public ClassNamingForNameMapper.Builder classNamingBuilder(
         String renamedName, String originalName, Position position) {
-      ClassNamingForNameMapper.Builder classNamingBuilder =
-          ClassNamingForNameMapper.builder(renamedName, originalName);
-      mapBuilder.put(renamedName, classNamingBuilder);
+      return addClassNamingBuilder(ClassNamingForNameMapper.builder(renamedName, originalName));
+    }
+
+    public ClassNamingForNameMapper.Builder addClassNamingBuilder(
+        ClassNamingForNameMapper.Builder classNamingBuilder) {
+      mapBuilder.put(classNamingBuilder.getRenamedName(), classNamingBuilder);
       return classNamingBuilder;
     }
 
@@ -240,6 +253,29 @@ public class ClassNameMapper implements ProguardMap {
     }
   }
 
+  /**
+   * Writes the mapping in the same order as {@link #write(ChainableStringConsumer)}, but formats
+   * the classes of each batch concurrently. Only a single batch of formatted sections is kept in
+   * memory at any point in time.
+   */
+  public void write(ChainableStringConsumer consumer, ExecutorService executorService)
+      throws ExecutionException {
+    assert verifyIsSorted();
+    List<ClassNamingForNameMapper> namings = new ArrayList<>(getClassNameMappings().values());
+    for (List<ClassNamingForNameMapper> batch : Lists.partition(namings, WRITE_BATCH_SIZE)) {
+      Collection<String> sections =
+          ThreadUtils.processItemsWithResults(
+              batch,
+              naming -> {
+                StringBuilder builder = new StringBuilder();
+                naming.write(ChainableStringConsumer.wrap(builder::append));
+                return builder.toString();
+              },
+              executorService);
+      sections.forEach(consumer::accept);
+    }
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
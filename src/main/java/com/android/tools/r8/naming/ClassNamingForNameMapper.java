@@ -17,6 +17,7 @@ import com.android.tools.r8.utils.ThrowingConsumer;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -24,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -48,6 +50,10 @@ public class ClassNamingForNameMapper implements ClassNaming {
       this.renamedName = renamedName;
     }
 
+    String getRenamedName() {
+      return renamedName;
+    }
+
     @Override
     public ClassNaming.Builder addMemberEntry(MemberNaming entry) {
       if (entry.isMethodNaming()) {
@@ -140,10 +146,23 @@ public class ClassNamingForNameMapper implements ClassNaming {
   public static class MappedRangesOfName {
     private final List<MappedRange> mappedRanges;
 
+    // Lazily computed index for looking up the ranges of a minified line, see MinifiedLineIndex.
+    private volatile MinifiedLineIndex minifiedLineIndex;
+
     public MappedRangesOfName(List<MappedRange> mappedRanges) {
       this.mappedRanges = mappedRanges;
     }
 
+    private MinifiedLineIndex getMinifiedLineIndex() {
+      MinifiedLineIndex index = minifiedLineIndex;
+      if (index == null) {
+        // Computing the index is idempotent, so concurrent lookups may race to publish it.
+        index = MinifiedLineIndex.create(mappedRanges);
+        minifiedLineIndex = index;
+      }
+      return index;
+    }
+
     /**
      * Return the first MappedRange that contains {@code line}. Return general MappedRange ("a() ->
      * b") if no concrete mapping found or null if nothing found.
@@ -183,6 +202,14 @@ public class ClassNamingForNameMapper implements ClassNaming {
      * @return The list with all ranges for line.
      */
     public List<MappedRange> allRangesForLine(int line, boolean takeFirstWithNoLineRange) {
+      MinifiedLineIndex index = getMinifiedLineIndex();
+      if (index.isValid()) {
+        List<MappedRange> ranges = index.lookup(mappedRanges, line);
+        if (!ranges.isEmpty() || !takeFirstWithNoLineRange || index.firstNoLineRange < 0) {
+          return ranges;
+        }
+        return Collections.singletonList(mappedRanges.get(index.firstNoLineRange));
+      }
       MappedRange noLineRange = null;
       for (int i = 0; i < mappedRanges.size(); ++i) {
         MappedRange rangeI = mappedRanges.get(i);
@@ -210,6 +237,91 @@ public class ClassNamingForNameMapper implements ClassNaming {
       return mappedRanges;
     }
 
+    /**
+     * Index of the runs of consecutive mapped ranges with the same minified range, sorted by the
+     * start of the minified range. The runs are stored in primitive arrays and are found by binary
+     * search. The index is only valid if no two runs overlap, since the lookup must otherwise
+     * return the first matching run in the original order and falls back to a linear scan.
+     */
+    private static class MinifiedLineIndex {
+
+      private static final MinifiedLineIndex INVALID = new MinifiedLineIndex(null, null, null, -1);
+
+      // Start and end lines of the minified range of each run, sorted by start line.
+      private final int[] minifiedStarts;
+      private final int[] minifiedEnds;
+      // Index of the first mapped range of each run. The run ends at the start of the next run.
+      private final int[] runStarts;
+      // Index of the first "a() -> b" mapping, or -1 if there is none.
+      private final int firstNoLineRange;
+
+      private MinifiedLineIndex(
+          int[] minifiedStarts, int[] minifiedEnds, int[] runStarts, int firstNoLineRange) {
+        this.minifiedStarts = minifiedStarts;
+        this.minifiedEnds = minifiedEnds;
+        this.runStarts = runStarts;
+        this.firstNoLineRange = firstNoLineRange;
+      }
+
+      static MinifiedLineIndex create(List<MappedRange> mappedRanges) {
+        // Collect the runs as (start line, index of first mapped range) pairs packed into longs,
+        // such that sorting the longs sorts the runs by their start line.
+        long[] runs = new long[mappedRanges.size()];
+        int numberOfRuns = 0;
+        int firstNoLineRange = -1;
+        for (int i = 0; i < mappedRanges.size(); i++) {
+          Range minifiedRange = mappedRanges.get(i).minifiedRange;
+          if (minifiedRange == null) {
+            if (firstNoLineRange < 0) {
+              firstNoLineRange = i;
+            }
+          } else if (i > 0 && minifiedRange.equals(mappedRanges.get(i - 1).minifiedRange)) {
+            // Continuation of the current run.
+          } else if (minifiedRange.from <= minifiedRange.to) {
+            // Empty ranges never match a line and are left out.
+            runs[numberOfRuns++] = ((long) minifiedRange.from << 32) | i;
+          }
+        }
+        Arrays.sort(runs, 0, numberOfRuns);
+        int[] minifiedStarts = new int[numberOfRuns];
+        int[] minifiedEnds = new int[numberOfRuns];
+        int[] runStarts = new int[numberOfRuns];
+        for (int i = 0; i < numberOfRuns; i++) {
+          runStarts[i] = (int) runs[i];
+          Range minifiedRange = mappedRanges.get(runStarts[i]).minifiedRange;
+          if (i > 0 && minifiedEnds[i - 1] >= minifiedRange.from) {
+            return INVALID;
+          }
+          minifiedStarts[i] = minifiedRange.from;
+          minifiedEnds[i] = minifiedRange.to;
+        }
+        return new MinifiedLineIndex(minifiedStarts, minifiedEnds, runStarts, firstNoLineRange);
+      }
+
+      boolean isValid() {
+        return this != INVALID;
+      }
+
+      List<MappedRange> lookup(List<MappedRange> mappedRanges, int line) {
+        int run = Arrays.binarySearch(minifiedStarts, line);
+        if (run < 0) {
+          // The run with the greatest start line less than line, if any.
+          run = -run - 2;
+          if (run < 0 || minifiedEnds[run] < line) {
+            return Collections.emptyList();
+          }
+        }
+        int start = runStarts[run];
+        Range minifiedRange = mappedRanges.get(start).minifiedRange;
+        int end = start + 1;
+        while (end < mappedRanges.size()
+            && Objects.equals(mappedRanges.get(end).minifiedRange, minifiedRange)) {
+          end++;
+        }
+        return mappedRanges.subList(start, end);
+      }
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
@@ -230,7 +342,7 @@ public class ClassNamingForNameMapper implements ClassNaming {
     }
   }
 
-  static Builder builder(String renamedName, String originalName) {
+  public static Builder builder(String renamedName, String originalName) {
     return new Builder(renamedName, originalName);
   }
 
@@ -438,10 +550,10 @@ public class ClassNamingForNameMapper implements ClassNaming {
    */
   public static class MappedRange {
 
-    private static int nextSequenceNumber = 0;
+    private static final AtomicInteger nextSequenceNumber = new AtomicInteger();
 
-    private synchronized int getNextSequenceNumber() {
-      return nextSequenceNumber++;
+    private static int getNextSequenceNumber() {
+      return nextSequenceNumber.getAndIncrement();
     }
 
     public final Range minifiedRange; // Can be null, if so then originalRange must also be null.
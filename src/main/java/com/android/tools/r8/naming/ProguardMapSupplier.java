@@ -12,10 +12,13 @@ import com.android.tools.r8.utils.ChainableStringConsumer;
 import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.ThrowingConsumer;
 import com.android.tools.r8.utils.VersionProperties;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class ProguardMapSupplier {
 
@@ -61,23 +64,30 @@ public class ProguardMapSupplier {
   }
 
   public ProguardMapId writeProguardMap() {
-    ProguardMapId id = computeProguardMapId();
+    return writeProguardMap(classNameMapper::write);
+  }
+
+  public ProguardMapId writeProguardMap(ExecutorService executorService)
+      throws ExecutionException {
+    return writeProguardMap(consumer -> classNameMapper.write(consumer, executorService));
+  }
+
+  private <E extends Throwable> ProguardMapId writeProguardMap(
+      ThrowingConsumer<ChainableStringConsumer, E> mappingWriter) throws E {
+    ProguardMapId id = computeProguardMapId(mappingWriter);
     writeMarker(id);
-    writeBody();
+    mappingWriter.accept(new ProguardMapWriter());
     ExceptionUtils.withFinishedResourceHandler(reporter, consumer);
     return id;
   }
 
-  private ProguardMapId computeProguardMapId() {
+  private <E extends Throwable> ProguardMapId computeProguardMapId(
+      ThrowingConsumer<ChainableStringConsumer, E> mappingWriter) throws E {
     ProguardMapIdBuilder builder = new ProguardMapIdBuilder();
-    classNameMapper.write(builder);
+    mappingWriter.accept(builder);
     return builder.build();
   }
 
-  private void writeBody() {
-    classNameMapper.write(new ProguardMapWriter());
-  }
-
   private void writeMarker(ProguardMapId id) {
     StringBuilder builder = new StringBuilder();
     builder.append(
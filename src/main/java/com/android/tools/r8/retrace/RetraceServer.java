@@ -0,0 +1,263 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import com.android.tools.r8.Diagnostic;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.Keep;
+import com.android.tools.r8.Version;
+import com.android.tools.r8.retrace.internal.RetraceAbortException;
+import com.android.tools.r8.retrace.internal.RetracerCache;
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
+import com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser;
+import com.android.tools.r8.utils.OptionsParsing;
+import com.android.tools.r8.utils.OptionsParsing.ParseContext;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.base.Charsets;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A long running retrace service that reads requests from an input stream and writes the retraced
+ * stack traces to an output stream. Parsed mapping files are kept in a least recently used cache,
+ * such that repeated requests for the same mapping file do not parse the mapping file again.
+ *
+ * <p>The protocol is line based. A request is
+ *
+ * <pre>
+ *   RETRACE &lt;number-of-lines&gt; &lt;mapping-file&gt;
+ *   &lt;stack-trace-line&gt;
+ *   ...
+ * </pre>
+ *
+ * <p>and is answered by either
+ *
+ * <pre>
+ *   OK &lt;number-of-lines&gt;
+ *   &lt;retraced-line&gt;
+ *   ...
+ * </pre>
+ *
+ * <p>or by the single line {@code ERROR <message>}. The request {@code QUIT} stops the service. A
+ * mapping file is identified by its path, size and modification time, such that a mapping file
+ * which is replaced is parsed again.
+ */
+@Keep
+public class RetraceServer {
+
+  public static final String USAGE_MESSAGE =
+      StringUtils.lines(
+          "Usage: retrace-server [--cache-size <megabytes>, --regex <regexp>, --verbose]",
+          "  Reads retrace requests from standard input and writes the results to standard"
+              + " output.");
+
+  private static final String RETRACE = "RETRACE";
+  private static final String QUIT = "QUIT";
+  private static final String OK = "OK";
+  private static final String ERROR = "ERROR";
+
+  private static final long DEFAULT_CACHE_SIZE_IN_MEGABYTES = 1024;
+
+  // Rough estimate of the size of a parsed mapping relative to the size of the mapping file.
+  private static final long ESTIMATED_BYTES_PER_MAPPING_FILE_BYTE = 4;
+
+  private final RetracerCache cache;
+  private final StackTraceLineParser<String, StackTraceElementStringProxy> stackTraceLineParser;
+  private final boolean isVerbose;
+
+  public RetraceServer(long cacheSizeInBytes, String regularExpression, boolean isVerbose) {
+    this.cache = new RetracerCache(cacheSizeInBytes);
+    this.stackTraceLineParser =
+        StackTraceLineParser.createRegularExpressionParser(regularExpression);
+    this.isVerbose = isVerbose;
+  }
+
+  /**
+   * Serves requests from {@code input} until the end of the input or until the request {@code
+   * QUIT}. Failing requests are answered with an error and do not stop the service.
+   *
+   * @param input the requests
+   * @param output the responses, which is flushed after each response
+   */
+  public void serve(Reader input, Writer output) throws IOException {
+    BufferedReader reader = new BufferedReader(input);
+    PrintWriter writer = new PrintWriter(output);
+    String request;
+    while ((request = reader.readLine()) != null) {
+      request = request.trim();
+      if (request.isEmpty()) {
+        continue;
+      }
+      if (request.equals(QUIT)) {
+        break;
+      }
+      serveRequest(request, reader, writer);
+      writer.flush();
+    }
+    writer.flush();
+  }
+
+  private void serveRequest(String request, BufferedReader reader, PrintWriter writer)
+      throws IOException {
+    String[] parts = request.split(" ", 3);
+    if (parts.length != 3 || !parts[0].equals(RETRACE)) {
+      writeError(writer, "Invalid request '" + request + "'");
+      return;
+    }
+    int numberOfLines;
+    try {
+      numberOfLines = Integer.parseInt(parts[1]);
+    } catch (NumberFormatException e) {
+      numberOfLines = -1;
+    }
+    if (numberOfLines < 0) {
+      writeError(writer, "Invalid number of lines '" + parts[1] + "'");
+      return;
+    }
+    List<String> stackTrace = new ArrayList<>(numberOfLines);
+    for (int i = 0; i < numberOfLines; i++) {
+      String line = reader.readLine();
+      if (line == null) {
+        writeError(writer, "Unexpected end of input");
+        return;
+      }
+      stackTrace.add(line);
+    }
+    Path mappingFile = Paths.get(parts[2]);
+    ErrorCollectingDiagnosticsHandler diagnosticsHandler = new ErrorCollectingDiagnosticsHandler();
+    List<String> retraced;
+    try {
+      retraced = retrace(mappingFile, stackTrace, diagnosticsHandler);
+    } catch (IOException e) {
+      writeError(writer, "Could not read mapping file '" + mappingFile + "'");
+      return;
+    } catch (RuntimeException e) {
+      writeError(
+          writer,
+          diagnosticsHandler.firstError != null ? diagnosticsHandler.firstError : e.getMessage());
+      return;
+    }
+    writer.println(OK + " " + retraced.size());
+    retraced.forEach(writer::println);
+  }
+
+  private List<String> retrace(
+      Path mappingFile, List<String> stackTrace, DiagnosticsHandler diagnosticsHandler)
+      throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(mappingFile, BasicFileAttributes.class);
+    String key =
+        mappingFile.toAbsolutePath()
+            + ":"
+            + attributes.size()
+            + ":"
+            + attributes.lastModifiedTime().toMillis();
+    Retracer retracer =
+        cache.getOrCreate(
+            key,
+            attributes.size() * ESTIMATED_BYTES_PER_MAPPING_FILE_BYTE,
+            () ->
+                Retracer.createDefault(
+                    () -> new String(Files.readAllBytes(mappingFile), Charsets.UTF_8),
+                    diagnosticsHandler));
+    return new StringRetrace(
+            stackTraceLineParser,
+            StackTraceElementProxyRetracer.createDefault(retracer),
+            diagnosticsHandler,
+            isVerbose)
+        .retrace(stackTrace);
+  }
+
+  private static void writeError(PrintWriter writer, String message) {
+    // The message must fit on the single line of the response.
+    writer.println(ERROR + " " + String.valueOf(message).replace('\n', ' ').replace('\r', ' '));
+  }
+
+  private static class ErrorCollectingDiagnosticsHandler implements DiagnosticsHandler {
+
+    private String firstError = null;
+
+    @Override
+    public void error(Diagnostic error) {
+      if (firstError == null) {
+        firstError = error.getDiagnosticMessage();
+      }
+    }
+
+    @Override
+    public void warning(Diagnostic warning) {
+      // Warnings are not part of the response.
+    }
+
+    @Override
+    public void info(Diagnostic info) {
+      // Infos are not part of the response.
+    }
+  }
+
+  private static RetraceServer parseArguments(String[] args) {
+    ParseContext context = new ParseContext(args);
+    long cacheSizeInMegabytes = DEFAULT_CACHE_SIZE_IN_MEGABYTES;
+    String regularExpression = StackTraceRegularExpressionParser.DEFAULT_REGULAR_EXPRESSION;
+    boolean isVerbose = false;
+    while (context.head() != null) {
+      if (OptionsParsing.tryParseBoolean(context, "--help") != null) {
+        return null;
+      }
+      if (OptionsParsing.tryParseBoolean(context, "--version") != null) {
+        return null;
+      }
+      if (OptionsParsing.tryParseBoolean(context, "--verbose") != null) {
+        isVerbose = true;
+        continue;
+      }
+      String regex = OptionsParsing.tryParseSingle(context, "--regex", "r");
+      if (regex != null && !regex.isEmpty()) {
+        regularExpression = regex;
+        continue;
+      }
+      String cacheSize = OptionsParsing.tryParseSingle(context, "--cache-size", null);
+      if (cacheSize != null) {
+        cacheSizeInMegabytes = Long.parseLong(cacheSize);
+        continue;
+      }
+      throw new RetraceAbortException();
+    }
+    return new RetraceServer(cacheSizeInMegabytes * 1024 * 1024, regularExpression, isVerbose);
+  }
+
+  /**
+   * The main entry point for running retrace as a service reading from standard input.
+   *
+   * @param args The argument that describes the service.
+   */
+  public static void main(String... args) throws IOException {
+    RetraceServer server;
+    try {
+      server = parseArguments(args);
+    } catch (RuntimeException e) {
+      System.err.print(USAGE_MESSAGE);
+      throw new RuntimeException("Invalid arguments", e);
+    }
+    if (server == null) {
+      System.out.println("Retrace server " + Version.getVersionString());
+      System.out.print(USAGE_MESSAGE);
+      return;
+    }
+    server.serve(
+        new InputStreamReader(System.in, Charsets.UTF_8),
+        new OutputStreamWriter(System.out, Charsets.UTF_8));
+  }
+}
@@ -9,10 +9,13 @@ import static com.android.tools.r8.retrace.internal.RetraceUtils.firstNonWhiteSp
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.Keep;
 import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
+import com.android.tools.r8.utils.ThreadUtils;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -59,6 +62,32 @@ public class StringRetrace extends Retrace<String, StackTraceElementStringProxy>
     return retracedStrings;
   }
 
+  /**
+   * Retraces a list of independent stack traces concurrently and returns the retraced stack traces
+   * in the order of the incoming stack traces. All stack traces are retraced against the mapping
+   * of this StringRetrace, which is not modified by retracing. Note that the diagnostics handler
+   * may be called concurrently.
+   *
+   * @param stackTraces the incoming stack traces
+   * @param executorService the executor service used for retracing the stack traces
+   * @return the retraced stack traces
+   */
+  public List<List<String>> retraceAll(
+      List<List<String>> stackTraces, ExecutorService executorService) {
+    try {
+      return new ArrayList<>(
+          ThreadUtils.processItemsWithResults(
+              stackTraces, stackTrace -> retrace(stackTrace), executorService));
+    } catch (ExecutionException e) {
+      // Rethrow the failure of the retracing, such as a RetraceAbortException, directly.
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
   /**
    * Retraces a single stack trace line and returns the potential list of original frames
    *
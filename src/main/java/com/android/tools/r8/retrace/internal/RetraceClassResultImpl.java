@@ -89,7 +89,7 @@ public class RetraceClassResultImpl implements RetraceClassResult {
           if (mappedRanges == null || mappedRanges.getMappedRanges().isEmpty()) {
             return null;
           }
-          return mappedRanges.getMappedRanges();
+          return mappedRanges;
         },
         RetraceMethodResultImpl::new);
   }
@@ -286,7 +286,7 @@ public class RetraceClassResultImpl implements RetraceClassResult {
             if (mappedRanges == null || mappedRanges.getMappedRanges().isEmpty()) {
               return null;
             }
-            return mappedRanges.getMappedRanges();
+            return mappedRanges;
           },
           RetraceMethodResultImpl::new);
     }
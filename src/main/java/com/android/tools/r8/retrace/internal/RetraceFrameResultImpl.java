@@ -16,7 +16,6 @@ import com.android.tools.r8.retrace.RetracedMethod;
 import com.android.tools.r8.retrace.Retracer;
 import com.android.tools.r8.utils.Pair;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -83,21 +82,23 @@ public class RetraceFrameResultImpl implements RetraceFrameResult {
                         ImmutableList.of(),
                         obfuscatedPosition));
               }
-              // Iterate over mapped ranges that may have different positions than specified.
+              // Iterate over mapped ranges that may have different positions than specified. The
+              // ranges of each frame are views of the mapped ranges to avoid copying them.
               List<ElementImpl> ambiguousFrames = new ArrayList<>();
               Range minifiedRange = mappedRanges.get(0).minifiedRange;
-              List<MappedRange> mappedRangesForElement = Lists.newArrayList(mappedRanges.get(0));
+              int frameStart = 0;
               for (int i = 1; i < mappedRanges.size(); i++) {
                 MappedRange mappedRange = mappedRanges.get(i);
                 if (minifiedRange == null || !minifiedRange.equals(mappedRange.minifiedRange)) {
                   // This is a new frame
                   ambiguousFrames.add(
-                      elementFromMappedRanges(mappedRangesForElement, classElement));
-                  mappedRangesForElement = new ArrayList<>();
+                      elementFromMappedRanges(mappedRanges.subList(frameStart, i), classElement));
+                  frameStart = i;
                 }
-                mappedRangesForElement.add(mappedRange);
               }
-              ambiguousFrames.add(elementFromMappedRanges(mappedRangesForElement, classElement));
+              ambiguousFrames.add(
+                  elementFromMappedRanges(
+                      mappedRanges.subList(frameStart, mappedRanges.size()), classElement));
               return ambiguousFrames.stream();
             });
   }
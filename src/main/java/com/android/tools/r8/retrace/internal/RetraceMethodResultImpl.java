@@ -20,12 +20,12 @@ public class RetraceMethodResultImpl implements RetraceMethodResult {
 
   private final MethodDefinition methodDefinition;
   private final RetraceClassResultImpl classResult;
-  private final List<Pair<RetraceClassResultImpl.ElementImpl, List<MappedRange>>> mappedRanges;
+  private final List<Pair<RetraceClassResultImpl.ElementImpl, MappedRangesOfName>> mappedRanges;
   private final Retracer retracer;
 
   RetraceMethodResultImpl(
       RetraceClassResultImpl classResult,
-      List<Pair<RetraceClassResultImpl.ElementImpl, List<MappedRange>>> mappedRanges,
+      List<Pair<RetraceClassResultImpl.ElementImpl, MappedRangesOfName>> mappedRanges,
       MethodDefinition methodDefinition,
       Retracer retracer) {
     this.classResult = classResult;
@@ -41,12 +41,12 @@ public class RetraceMethodResultImpl implements RetraceMethodResult {
     if (mappedRanges.size() > 1) {
       return true;
     }
-    List<MappedRange> methodRanges = mappedRanges.get(0).getSecond();
-    if (methodRanges == null || methodRanges.isEmpty()) {
+    MappedRangesOfName methodRanges = mappedRanges.get(0).getSecond();
+    if (methodRanges == null || methodRanges.getMappedRanges().isEmpty()) {
       return false;
     }
-    MappedRange lastRange = methodRanges.get(0);
-    for (MappedRange mappedRange : methodRanges) {
+    MappedRange lastRange = methodRanges.getMappedRanges().get(0);
+    for (MappedRange mappedRange : methodRanges.getMappedRanges()) {
       if (mappedRange != lastRange
           && (mappedRange.minifiedRange == null
               || !mappedRange.minifiedRange.equals(lastRange.minifiedRange))) {
@@ -62,20 +62,20 @@ public class RetraceMethodResultImpl implements RetraceMethodResult {
         new ArrayList<>();
     List<Pair<RetraceClassResultImpl.ElementImpl, List<MappedRange>>> noMappingRanges =
         new ArrayList<>();
-    for (Pair<RetraceClassResultImpl.ElementImpl, List<MappedRange>> mappedRange : mappedRanges) {
+    for (Pair<RetraceClassResultImpl.ElementImpl, MappedRangesOfName> mappedRange :
+        mappedRanges) {
       if (mappedRange.getSecond() == null) {
         noMappingRanges.add(new Pair<>(mappedRange.getFirst(), null));
         continue;
       }
-      List<MappedRange> ranges =
-          new MappedRangesOfName(mappedRange.getSecond()).allRangesForLine(position, false);
+      List<MappedRange> ranges = mappedRange.getSecond().allRangesForLine(position, false);
       boolean hasAddedRanges = false;
       if (!ranges.isEmpty()) {
         narrowedRanges.add(new Pair<>(mappedRange.getFirst(), ranges));
         hasAddedRanges = true;
       } else {
         narrowedRanges = new ArrayList<>();
-        for (MappedRange mapped : mappedRange.getSecond()) {
+        for (MappedRange mapped : mappedRange.getSecond().getMappedRanges()) {
           if (mapped.minifiedRange == null) {
             narrowedRanges.add(new Pair<>(mappedRange.getFirst(), ImmutableList.of(mapped)));
             hasAddedRanges = true;
@@ -100,8 +100,8 @@ public class RetraceMethodResultImpl implements RetraceMethodResult {
         .flatMap(
             mappedRangePair -> {
               RetraceClassResultImpl.ElementImpl classElement = mappedRangePair.getFirst();
-              List<MappedRange> mappedRanges = mappedRangePair.getSecond();
-              if (mappedRanges == null || mappedRanges.isEmpty()) {
+              MappedRangesOfName mappedRanges = mappedRangePair.getSecond();
+              if (mappedRanges == null || mappedRanges.getMappedRanges().isEmpty()) {
                 return Stream.of(
                     new ElementImpl(
                         this,
@@ -110,7 +110,7 @@ public class RetraceMethodResultImpl implements RetraceMethodResult {
                             methodDefinition.substituteHolder(
                                 classElement.getRetracedClass().getClassReference()))));
               }
-              return mappedRanges.stream()
+              return mappedRanges.getMappedRanges().stream()
                   .map(
                       mappedRange -> {
                         MethodReference methodReference =
@@ -0,0 +1,73 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace.internal;
+
+import com.android.tools.r8.retrace.Retracer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of retracers keyed by a mapping id. Each retracer has an estimated
+ * weight, and the least recently used retracers are evicted when the total weight exceeds the
+ * capacity. The most recently used retracer is never evicted, even if its weight alone exceeds the
+ * capacity.
+ */
+public class RetracerCache {
+
+  private static class Entry {
+
+    private final Retracer retracer;
+    private final long weight;
+
+    private Entry(Retracer retracer, long weight) {
+      this.retracer = retracer;
+      this.weight = weight;
+    }
+  }
+
+  private final long capacity;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalWeight = 0;
+
+  public RetracerCache(long capacity) {
+    assert capacity >= 0;
+    this.capacity = capacity;
+  }
+
+  public synchronized Retracer getOrCreate(String key, long weight, Supplier<Retracer> factory) {
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      return entry.retracer;
+    }
+    // Make room before creating the retracer such that the evicted retracers can be collected.
+    evict(capacity - weight);
+    Retracer retracer = factory.get();
+    entries.put(key, new Entry(retracer, weight));
+    totalWeight += weight;
+    return retracer;
+  }
+
+  private void evict(long targetWeight) {
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    while (totalWeight > targetWeight && iterator.hasNext()) {
+      totalWeight -= iterator.next().getValue().weight;
+      iterator.remove();
+    }
+  }
+
+  public synchronized boolean contains(String key) {
+    return entries.containsKey(key);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getTotalWeight() {
+    return totalWeight;
+  }
+}
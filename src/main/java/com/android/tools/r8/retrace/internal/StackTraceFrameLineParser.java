@@ -0,0 +1,197 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace.internal;
+
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy.ClassNameType;
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy.StackTraceElementStringProxyBuilder;
+
+/**
+ * Hand written parser for frame lines of the form
+ *
+ * <pre>
+ *   [prefix] at com.example.Foo.bar(Foo.java:42)
+ * </pre>
+ *
+ * <p>It is used in place of {@link StackTraceRegularExpressionParser#DEFAULT_REGULAR_EXPRESSION},
+ * and it gives exactly the same result as the regular expression. Arbitrary prefixes such as the
+ * time, pid and tag of logcat lines are supported like in the regular expression. The parser
+ * handles only lines where it can determine the match of the regular expression with certainty.
+ * For all other lines, {@link #tryParse} returns null, and the caller must use the regular
+ * expression instead.
+ */
+final class StackTraceFrameLineParser {
+
+  private static final String INIT = "<init>";
+  private static final String CLINIT = "<clinit>";
+  private static final String SUPPRESSED = "Suppressed";
+
+  private StackTraceFrameLineParser() {}
+
+  static StackTraceElementStringProxy tryParse(String line) {
+    int length = line.length();
+    for (int i = 0; i < length; i++) {
+      char c = line.charAt(i);
+      // The regular expression works on code points and '.' does not match line terminators.
+      if (Character.isSurrogate(c) || isLineTerminator(c)) {
+        return null;
+      }
+    }
+
+    // Find the first "at" that starts a word and is followed by whitespace. This corresponds to the
+    // first candidate of the reluctant prefix '.*?\bat\s+' in the regular expression.
+    int atIndex = findFirstAtCandidate(line);
+    if (atIndex < 0) {
+      return null;
+    }
+    int index = atIndex + 2;
+    while (index < length && isWhitespace(line.charAt(index))) {
+      index++;
+    }
+
+    // Parse '%c\.%m', where the class name is the identifier segments up to the last dot.
+    int classStart = index;
+    int lastDot = -1;
+    boolean expectIdentifierStart = true;
+    while (index < length) {
+      char c = line.charAt(index);
+      if (c == '.') {
+        if (expectIdentifierStart) {
+          return null;
+        }
+        lastDot = index;
+        expectIdentifierStart = true;
+      } else if (expectIdentifierStart
+          ? Character.isJavaIdentifierStart(c)
+          : Character.isJavaIdentifierPart(c)) {
+        expectIdentifierStart = false;
+      } else {
+        break;
+      }
+      index++;
+    }
+    if (lastDot <= classStart) {
+      return null;
+    }
+    int methodStart = lastDot + 1;
+    int methodEnd;
+    if (!expectIdentifierStart) {
+      methodEnd = index;
+    } else if (index == methodStart && line.startsWith(INIT, index)) {
+      methodEnd = index + INIT.length();
+    } else if (index == methodStart && line.startsWith(CLINIT, index)) {
+      methodEnd = index + CLINIT.length();
+    } else {
+      return null;
+    }
+
+    // Parse '\s*\(%s(?::%l)?\)\s*'. The suffix '~[...]' is left for the regular expression.
+    index = methodEnd;
+    while (index < length && isWhitespace(line.charAt(index))) {
+      index++;
+    }
+    if (index == length || line.charAt(index) != '(') {
+      return null;
+    }
+    int sourceFileStart = index + 1;
+    int close = length - 1;
+    while (close >= sourceFileStart && isWhitespace(line.charAt(close))) {
+      close--;
+    }
+    if (close < sourceFileStart || line.charAt(close) != ')') {
+      return null;
+    }
+
+    // The source file group is greedy, so it takes everything up to the closing parenthesis if it
+    // can. Otherwise the content must end with ':<digits>' which is the line number.
+    int sourceFileEnd;
+    int lineNumberStart = -1;
+    if (isSourceFile(line, sourceFileStart, close)) {
+      sourceFileEnd = close;
+    } else {
+      int lastColon = line.lastIndexOf(':', close - 1);
+      if (lastColon < sourceFileStart
+          || !isDigits(line, lastColon + 1, close)
+          || !isSourceFile(line, sourceFileStart, lastColon)) {
+        return null;
+      }
+      sourceFileEnd = lastColon;
+      lineNumberStart = lastColon + 1;
+    }
+
+    // Register the groups in the same order as the regular expression parser.
+    StackTraceElementStringProxyBuilder builder = StackTraceElementStringProxy.builder(line);
+    if (lastDot - classStart != SUPPRESSED.length()
+        || !line.startsWith(SUPPRESSED, classStart)) {
+      builder.registerClassName(classStart, lastDot, ClassNameType.TYPENAME);
+    }
+    builder.registerMethodName(methodStart, methodEnd);
+    builder.registerSourceFile(sourceFileStart, sourceFileEnd);
+    if (lineNumberStart >= 0) {
+      builder.registerLineNumber(lineNumberStart, close);
+    }
+    return builder.build();
+  }
+
+  private static int findFirstAtCandidate(String line) {
+    int index = line.indexOf("at");
+    while (index >= 0) {
+      if (index + 2 < line.length() && isWhitespace(line.charAt(index + 2))) {
+        if (index == 0 || isWhitespace(line.charAt(index - 1))) {
+          return index;
+        }
+        if (!isAsciiWordCharacter(line.charAt(index - 1))) {
+          // The word boundary depends on the regular expression implementation.
+          return -1;
+        }
+      }
+      index = line.indexOf("at", index + 1);
+    }
+    return -1;
+  }
+
+  // Checks if the range matches the source file group '((?::+[^\d:])|[^:])*', i.e., every run of
+  // colons is followed by a character which is not a digit. A trailing colon would need the closing
+  // parenthesis, which is then no longer available.
+  private static boolean isSourceFile(String line, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (line.charAt(i) == ':') {
+        while (i < end && line.charAt(i) == ':') {
+          i++;
+        }
+        if (i == end || isDigit(line.charAt(i))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigits(String line, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!isDigit(line.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Corresponds to '\d' without the UNICODE_CHARACTER_CLASS flag.
+  private static boolean isDigit(char c) {
+    return '0' <= c && c <= '9';
+  }
+
+  // Corresponds to '\s' without the UNICODE_CHARACTER_CLASS flag.
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isAsciiWordCharacter(char c) {
+    return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || isDigit(c) || c == '_';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
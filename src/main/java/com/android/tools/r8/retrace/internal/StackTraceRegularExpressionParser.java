@@ -25,6 +25,9 @@ public class StackTraceRegularExpressionParser
 
   private final Pattern compiledPattern;
 
+  // Frame lines are parsed without the regular expression when the default one is used.
+  private final boolean useFrameLineParser;
+
   private static final int NO_MATCH = -1;
 
   private final SourceFileLineNumberGroup sourceFileLineNumberGroup =
@@ -52,10 +55,17 @@ public class StackTraceRegularExpressionParser
     registerGroups(
         regularExpression, refinedRegularExpressionBuilder, handlers, FIRST_CAPTURE_GROUP_INDEX);
     compiledPattern = Pattern.compile(refinedRegularExpressionBuilder.toString());
+    useFrameLineParser = regularExpression.equals(DEFAULT_REGULAR_EXPRESSION);
   }
 
   @Override
   public StackTraceElementStringProxy parse(String stackTraceLine) {
+    if (useFrameLineParser) {
+      StackTraceElementStringProxy proxy = StackTraceFrameLineParser.tryParse(stackTraceLine);
+      if (proxy != null) {
+        return proxy;
+      }
+    }
     StackTraceElementStringProxyBuilder proxyBuilder =
         StackTraceElementStringProxy.builder(stackTraceLine);
     Matcher matcher = compiledPattern.matcher(stackTraceLine);
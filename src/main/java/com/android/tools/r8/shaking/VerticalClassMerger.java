@@ -56,6 +56,7 @@ import com.android.tools.r8.utils.Box;
 import com.android.tools.r8.utils.FieldSignatureEquivalence;
 import com.android.tools.r8.utils.MethodSignatureEquivalence;
 import com.android.tools.r8.utils.OptionalBool;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.TraversalContinuation;
 import com.android.tools.r8.utils.collections.BidirectionalManyToOneHashMap;
@@ -77,12 +78,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -186,6 +190,22 @@ public class VerticalClassMerger {
     }
   }
 
+  // The outcome of checking if a class is a merge candidate, before any classes have been merged.
+  private enum MergeCandidateCheck {
+    MERGE_CANDIDATE("merge candidate"),
+    NO_SINGLE_DIRECT_SUBTYPE("no single direct subtype"),
+    NON_PROGRAM_SUBTYPE("subtype is not a program class"),
+    NOT_MERGE_CANDIDATE("not a merge candidate"),
+    NOT_STILL_MERGE_CANDIDATE("not mergeable into subtype"),
+    ILLEGAL_ACCESS("may lead to illegal accesses");
+
+    private final String description;
+
+    MergeCandidateCheck(String description) {
+      this.description = description;
+    }
+  }
+
   private enum Rename {
     ALWAYS,
     IF_NEEDED,
@@ -235,35 +255,71 @@ public class VerticalClassMerger {
     this.methodPoolCollection = new MethodPoolCollection(appView, subtypingInfo);
     this.lensBuilder = new VerticalClassMergerGraphLens.Builder(appView.dexItemFactory());
     this.timing = timing;
-
-    Iterable<DexProgramClass> classes = application.classesWithDeterministicOrder();
-    initializePinnedTypes(classes); // Must be initialized prior to mergeCandidates.
-    initializeMergeCandidates(classes);
   }
 
-  private void initializeMergeCandidates(Iterable<DexProgramClass> classes) {
-    for (DexProgramClass sourceClass : classes) {
-      DexType singleSubtype = subtypingInfo.getSingleDirectSubtype(sourceClass.type);
-      if (singleSubtype == null) {
-        continue;
-      }
-      DexProgramClass targetClass = asProgramClassOrNull(appView.definitionFor(singleSubtype));
-      if (targetClass == null) {
-        continue;
-      }
-      if (!isMergeCandidate(sourceClass, targetClass, pinnedTypes)) {
-        continue;
-      }
-      if (!isStillMergeCandidate(sourceClass, targetClass)) {
-        continue;
-      }
-      if (mergeMayLeadToIllegalAccesses(sourceClass, targetClass)) {
-        continue;
+  private void initializeMergeCandidates(List<DexProgramClass> classes)
+      throws ExecutionException {
+    // Since no classes have been merged yet, the checks for each class are independent of the
+    // checks for other classes, and they are therefore evaluated concurrently. The candidates are
+    // added in the deterministic order of the classes.
+    boolean collectStatistics = Log.isLoggingEnabledFor(VerticalClassMerger.class);
+    AtomicLongArray times = new AtomicLongArray(MergeCandidateCheck.values().length);
+    Collection<MergeCandidateCheck> checks =
+        ThreadUtils.processItemsWithResults(
+            classes,
+            sourceClass -> {
+              if (!collectStatistics) {
+                return checkMergeCandidate(sourceClass);
+              }
+              long start = System.nanoTime();
+              MergeCandidateCheck check = checkMergeCandidate(sourceClass);
+              times.addAndGet(check.ordinal(), System.nanoTime() - start);
+              return check;
+            },
+            executorService);
+    int[] counts = new int[MergeCandidateCheck.values().length];
+    Iterator<DexProgramClass> classIterator = classes.iterator();
+    for (MergeCandidateCheck check : checks) {
+      DexProgramClass sourceClass = classIterator.next();
+      if (check == MergeCandidateCheck.MERGE_CANDIDATE) {
+        mergeCandidates.add(sourceClass);
+      }
+      counts[check.ordinal()]++;
+    }
+    if (collectStatistics) {
+      Log.info(getClass(), "Evaluated %d merge candidates.", classes.size());
+      for (MergeCandidateCheck check : MergeCandidateCheck.values()) {
+        Log.info(
+            getClass(),
+            "  %s: %d classes, %d ms.",
+            check.description,
+            counts[check.ordinal()],
+            TimeUnit.NANOSECONDS.toMillis(times.get(check.ordinal())));
       }
-      mergeCandidates.add(sourceClass);
     }
   }
 
+  private MergeCandidateCheck checkMergeCandidate(DexProgramClass sourceClass) {
+    DexType singleSubtype = subtypingInfo.getSingleDirectSubtype(sourceClass.type);
+    if (singleSubtype == null) {
+      return MergeCandidateCheck.NO_SINGLE_DIRECT_SUBTYPE;
+    }
+    DexProgramClass targetClass = asProgramClassOrNull(appView.definitionFor(singleSubtype));
+    if (targetClass == null) {
+      return MergeCandidateCheck.NON_PROGRAM_SUBTYPE;
+    }
+    if (!isMergeCandidate(sourceClass, targetClass, pinnedTypes)) {
+      return MergeCandidateCheck.NOT_MERGE_CANDIDATE;
+    }
+    if (!isStillMergeCandidate(sourceClass, targetClass)) {
+      return MergeCandidateCheck.NOT_STILL_MERGE_CANDIDATE;
+    }
+    if (mergeMayLeadToIllegalAccesses(sourceClass, targetClass)) {
+      return MergeCandidateCheck.ILLEGAL_ACCESS;
+    }
+    return MergeCandidateCheck.MERGE_CANDIDATE;
+  }
+
   // Returns a set of types that must not be merged into other types.
   private void initializePinnedTypes(Iterable<DexProgramClass> classes) {
     // For all pinned fields, also pin the type of the field (because changing the type of the field
@@ -634,7 +690,13 @@ public class VerticalClassMerger {
     }
   }
 
-  public VerticalClassMergerGraphLens run() {
+  public VerticalClassMergerGraphLens run() throws ExecutionException {
+    timing.begin("initialize");
+    List<DexProgramClass> classes = application.classesWithDeterministicOrder();
+    initializePinnedTypes(classes); // Must be initialized prior to mergeCandidates.
+    initializeMergeCandidates(classes);
+    timing.end();
+
     timing.begin("merge");
     // Visit the program classes in a top-down order according to the class hierarchy.
     TopDownClassHierarchyTraversal.forProgramClasses(appView)
@@ -28,6 +28,7 @@ import com.android.tools.r8.shaking.MainDexInfo;
 import com.android.tools.r8.synthesis.SyntheticNaming.SyntheticKind;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.SetUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.collections.BidirectionalManyToOneRepresentativeHashMap;
 import com.android.tools.r8.utils.collections.BidirectionalManyToOneRepresentativeMap;
 import com.android.tools.r8.utils.collections.MutableBidirectionalManyToOneRepresentativeMap;
@@ -42,9 +43,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 
 public class SyntheticFinalization {
@@ -161,10 +165,11 @@ public class SyntheticFinalization {
     this.committed = committed;
   }
 
-  public static void finalize(AppView<AppInfo> appView) {
+  public static void finalize(AppView<AppInfo> appView, ExecutorService executorService)
+      throws ExecutionException {
     assert !appView.appInfo().hasClassHierarchy();
     assert !appView.appInfo().hasLiveness();
-    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView);
+    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView, executorService);
     appView.setAppInfo(new AppInfo(result.commit, result.mainDexInfo));
     if (result.lens != null) {
       appView.setAppInfo(
@@ -177,9 +182,11 @@ public class SyntheticFinalization {
     appView.pruneItems(result.prunedItems);
   }
 
-  public static void finalizeWithClassHierarchy(AppView<AppInfoWithClassHierarchy> appView) {
+  public static void finalizeWithClassHierarchy(
+      AppView<AppInfoWithClassHierarchy> appView, ExecutorService executorService)
+      throws ExecutionException {
     assert !appView.appInfo().hasLiveness();
-    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView);
+    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView, executorService);
     appView.setAppInfo(appView.appInfo().rebuildWithClassHierarchy(result.commit));
     appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(result.mainDexInfo));
     if (result.lens != null) {
@@ -193,15 +200,18 @@ public class SyntheticFinalization {
     appView.pruneItems(result.prunedItems);
   }
 
-  public static void finalizeWithLiveness(AppView<AppInfoWithLiveness> appView) {
-    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView);
+  public static void finalizeWithLiveness(
+      AppView<AppInfoWithLiveness> appView, ExecutorService executorService)
+      throws ExecutionException {
+    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView, executorService);
     appView.setAppInfo(appView.appInfo().rebuildWithLiveness(result.commit));
     appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(result.mainDexInfo));
     appView.rewriteWithLens(result.lens);
     appView.pruneItems(result.prunedItems);
   }
 
-  Result computeFinalSynthetics(AppView<?> appView) {
+  Result computeFinalSynthetics(AppView<?> appView, ExecutorService executorService)
+      throws ExecutionException {
     assert verifyNoNestedSynthetics();
     DexApplication application;
     Builder lensBuilder = new Builder();
@@ -216,9 +226,17 @@ public class SyntheticFinalization {
           buildLensAndProgram(
               appView,
               computeEquivalences(
-                  appView, committed.getNonLegacyMethods().values(), generators, lensBuilder),
+                  appView,
+                  committed.getNonLegacyMethods().values(),
+                  generators,
+                  lensBuilder,
+                  executorService),
               computeEquivalences(
-                  appView, committed.getNonLegacyClasses().values(), generators, lensBuilder),
+                  appView,
+                  committed.getNonLegacyClasses().values(),
+                  generators,
+                  lensBuilder,
+                  executorService),
               lensBuilder,
               (clazz, reference) -> finalClassesBuilder.put(clazz.getType(), reference),
               (clazz, reference) -> finalMethodsBuilder.put(clazz.getType(), reference),
@@ -258,7 +276,9 @@ public class SyntheticFinalization {
           AppView<?> appView,
           ImmutableCollection<R> references,
           Map<String, NumberGenerator> generators,
-          Builder lensBuilder) {
+          Builder lensBuilder,
+          ExecutorService executorService)
+          throws ExecutionException {
     boolean intermediate = appView.options().intermediate;
     Map<DexType, D> definitions = lookupDefinitions(appView, references);
     ClassToFeatureSplitMap classToFeatureSplitMap =
@@ -272,14 +292,16 @@ public class SyntheticFinalization {
             appView.dexItemFactory(),
             appView.graphLens(),
             classToFeatureSplitMap,
-            synthetics);
+            synthetics,
+            executorService);
     return computeActualEquivalences(
         potentialEquivalences,
         generators,
         appView,
         intermediate,
         classToFeatureSplitMap,
-        lensBuilder);
+        lensBuilder,
+        executorService);
   }
 
   private boolean isNotSyntheticType(DexType type) {
@@ -466,36 +488,61 @@ public class SyntheticFinalization {
           AppView<?> appView,
           boolean intermediate,
           ClassToFeatureSplitMap classToFeatureSplitMap,
-          Builder lensBuilder) {
+          Builder lensBuilder,
+          ExecutorService executorService)
+          throws ExecutionException {
+    // Splitting each hash bucket into its actual equivalence groups only requires full structural
+    // comparisons within the bucket, so the buckets are processed concurrently. The results are
+    // collected in bucket order to keep the grouping deterministic.
+    Collection<List<EquivalenceGroup<T>>> groupsPerBucket =
+        ThreadUtils.processItemsWithResults(
+            potentialEquivalences,
+            members -> {
+              List<List<T>> groups =
+                  groupEquivalent(
+                      members,
+                      intermediate,
+                      appView.graphLens(),
+                      classToFeatureSplitMap,
+                      synthetics);
+              List<EquivalenceGroup<T>> equivalenceGroups = new ArrayList<>(groups.size());
+              for (List<T> group : groups) {
+                T representative =
+                    findDeterministicRepresentative(
+                        group, appView.graphLens(), classToFeatureSplitMap, synthetics);
+                // The representative is required to be the first element of the group.
+                group.remove(representative);
+                group.add(0, representative);
+                equivalenceGroups.add(new EquivalenceGroup<>(representative, group));
+              }
+              return equivalenceGroups;
+            },
+            executorService);
     Map<String, List<EquivalenceGroup<T>>> groupsPerPrefix = new HashMap<>();
-    potentialEquivalences.forEach(
-        members -> {
-          List<List<T>> groups =
-              groupEquivalent(
-                  members, intermediate, appView.graphLens(), classToFeatureSplitMap, synthetics);
-          for (List<T> group : groups) {
-            T representative =
-                findDeterministicRepresentative(
-                    group, appView.graphLens(), classToFeatureSplitMap, synthetics);
-            // The representative is required to be the first element of the group.
-            group.remove(representative);
-            group.add(0, representative);
-            groupsPerPrefix
-                .computeIfAbsent(
-                    representative.getPrefixForExternalSyntheticType(), k -> new ArrayList<>())
-                .add(new EquivalenceGroup<>(representative, group));
-          }
-        });
+    for (List<EquivalenceGroup<T>> groups : groupsPerBucket) {
+      for (EquivalenceGroup<T> group : groups) {
+        groupsPerPrefix
+            .computeIfAbsent(
+                group.getRepresentative().getPrefixForExternalSyntheticType(),
+                k -> new ArrayList<>())
+            .add(group);
+      }
+    }
+
+    // Sort the equivalence groups that go into 'context' including the context type of the
+    // representative which is equal to 'context' here (see assert below).
+    ThreadUtils.processItems(
+        groupsPerPrefix.values(),
+        groups ->
+            groups.sort(
+                (a, b) ->
+                    a.compareToIncludingContext(
+                        b, appView.graphLens(), classToFeatureSplitMap, synthetics)),
+        executorService);
 
     Map<DexType, EquivalenceGroup<T>> equivalences = new IdentityHashMap<>();
     groupsPerPrefix.forEach(
         (externalSyntheticTypePrefix, groups) -> {
-          // Sort the equivalence groups that go into 'context' including the context type of the
-          // representative which is equal to 'context' here (see assert below).
-          groups.sort(
-              (a, b) ->
-                  a.compareToIncludingContext(
-                      b, appView.graphLens(), classToFeatureSplitMap, synthetics));
           for (int i = 0; i < groups.size(); i++) {
             EquivalenceGroup<T> group = groups.get(i);
             assert group
@@ -612,7 +659,9 @@ public class SyntheticFinalization {
           DexItemFactory factory,
           GraphLens graphLens,
           ClassToFeatureSplitMap classToFeatureSplitMap,
-          SyntheticItems syntheticItems) {
+          SyntheticItems syntheticItems,
+          ExecutorService executorService)
+          throws ExecutionException {
     if (definitions.isEmpty()) {
       return Collections.emptyList();
     }
@@ -633,12 +682,21 @@ public class SyntheticFinalization {
               });
     }
     RepresentativeMap map = t -> syntheticTypes.contains(t) ? factory.voidType : t;
+    // The structural hash of each definition is computed exactly once and concurrently. Only the
+    // definitions that end up in the same hash bucket are subject to a full structural comparison.
+    List<T> definitionList = new ArrayList<>(definitions.values());
+    Collection<HashCode> hashes =
+        ThreadUtils.processItemsWithResults(
+            definitionList,
+            definition ->
+                definition.computeHash(map, intermediate, classToFeatureSplitMap, syntheticItems),
+            executorService);
     Map<HashCode, List<T>> equivalences = new HashMap<>(definitions.size());
-    for (T definition : definitions.values()) {
-      HashCode hash =
-          definition.computeHash(map, intermediate, classToFeatureSplitMap, syntheticItems);
-      equivalences.computeIfAbsent(hash, k -> new ArrayList<>()).add(definition);
+    Iterator<T> definitionIterator = definitionList.iterator();
+    for (HashCode hash : hashes) {
+      equivalences.computeIfAbsent(hash, k -> new ArrayList<>()).add(definitionIterator.next());
     }
+    assert !definitionIterator.hasNext();
     return equivalences.values();
   }
 
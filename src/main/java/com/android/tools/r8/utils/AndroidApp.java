@@ -778,6 +778,8 @@ public class AndroidApp {
     private List<StringResource> mainDexListResources = new ArrayList<>();
     private List<String> mainDexListClasses = new ArrayList<>();
     private boolean ignoreDexInArchive = false;
+    private ClassFileArchiveCache classFileArchiveCache =
+        ClassFileArchiveCache.getProcessWideCache();
 
     private StringResource proguardMapOutputData;
     private StringResource proguardMapInputData;
@@ -805,6 +807,15 @@ public class AndroidApp {
       return reporter;
     }
 
+    /**
+     * Set the cache used to read the class files of library and classpath archives that are added
+     * after this call.
+     */
+    public Builder setClassFileArchiveCache(ClassFileArchiveCache classFileArchiveCache) {
+      this.classFileArchiveCache = classFileArchiveCache;
+      return this;
+    }
+
     public Builder addDump(Path dumpFile) throws IOException {
       System.out.println("Reading dump from file: " + dumpFile);
       Origin origin = new PathOrigin(dumpFile);
@@ -989,13 +1000,22 @@ public class AndroidApp {
     /** Add library file resources. */
     public Builder addLibraryFiles(Collection<Path> files) {
       for (Path file : files) {
-        addClasspathOrLibraryProvider(file, libraryResourceProviders);
+        addLibraryFile(file);
       }
       return this;
     }
 
     /** Add library file resource. */
     public Builder addLibraryFile(Path file) {
+      if (LibraryStubs.isLibraryStubsFile(file)) {
+        // Library stubs only contain what is read for library classes.
+        try {
+          libraryResourceProviders.add(new LibraryStubsClassFileProvider(file));
+        } catch (IOException e) {
+          reporter.error(new ExceptionDiagnostic(e, new PathOrigin(file)));
+        }
+        return this;
+      }
       addClasspathOrLibraryProvider(file, libraryResourceProviders);
       return this;
     }
@@ -1006,7 +1026,7 @@ public class AndroidApp {
         if (isArchive(archive.getPath())) {
           try {
             FilteredArchiveClassFileProvider provider =
-                new FilteredArchiveClassFileProvider(archive);
+                new FilteredArchiveClassFileProvider(archive, classFileArchiveCache);
             archiveProvidersToClose.add(provider);
             libraryResourceProviders.add(provider);
           } catch (IOException e) {
@@ -1267,7 +1287,8 @@ public class AndroidApp {
       }
       if (isArchive(file)) {
         try {
-          InternalArchiveClassFileProvider provider = new InternalArchiveClassFileProvider(file);
+          InternalArchiveClassFileProvider provider =
+              new InternalArchiveClassFileProvider(file, entry -> true, classFileArchiveCache);
           archiveProvidersToClose.add(provider);
           providerList.add(provider);
         } catch (IOException e) {
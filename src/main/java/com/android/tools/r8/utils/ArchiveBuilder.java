@@ -11,6 +11,7 @@ import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.ResourceException;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.PrecompressedZipWriter.CompressedEntry;
 import com.google.common.io.ByteStreams;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
@@ -19,6 +20,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -27,9 +29,34 @@ import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
 
 public class ArchiveBuilder implements OutputBuilder {
+
+  /** How the entries of the archive are compressed. */
+  public enum CompressionMode {
+    // Entries are deflated by a ZipOutputStream, sequentially when they are written.
+    SEQUENTIAL,
+    // Entries are deflated by the threads adding them and the compressed data is written as is.
+    CONCURRENT,
+    // Entries are not compressed, which is the fastest for local iteration.
+    STORED;
+
+    private static CompressionMode getDefault() {
+      String mode = System.getProperty("com.android.tools.r8.archiveCompression");
+      if (mode == null) {
+        return SEQUENTIAL;
+      }
+      try {
+        return valueOf(mode.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        return SEQUENTIAL;
+      }
+    }
+  }
+
   private final Path archive;
   private final Origin origin;
+  private final CompressionMode compressionMode;
   private ZipOutputStream stream = null;
+  private PrecompressedZipWriter precompressedWriter = null;
   private boolean closed = false;
   private int openCount = 0;
   private int classesFileIndex = 0;
@@ -37,7 +64,12 @@ public class ArchiveBuilder implements OutputBuilder {
   private SortedSet<DelayedData> delayedWrites = new TreeSet<>();
 
   public ArchiveBuilder(Path archive) {
+    this(archive, CompressionMode.getDefault());
+  }
+
+  public ArchiveBuilder(Path archive, CompressionMode compressionMode) {
     this.archive = archive;
+    this.compressionMode = compressionMode;
     origin = new PathOrigin(archive);
   }
 
@@ -55,8 +87,13 @@ public class ArchiveBuilder implements OutputBuilder {
       writeDelayed(handler);
       closed = true;
       try {
-        getStreamRaw().close();
-        stream = null;
+        if (compressionMode == CompressionMode.SEQUENTIAL) {
+          getStreamRaw().close();
+          stream = null;
+        } else {
+          getPrecompressedWriterRaw().close();
+          precompressedWriter = null;
+        }
       } catch (IOException e) {
         handler.error(new ExceptionDiagnostic(e, origin));
       }
@@ -71,8 +108,8 @@ public class ArchiveBuilder implements OutputBuilder {
         assert data.content == null;
         writeDirectoryNow(data.name, handler);
       } else {
-        assert data.content != null;
-        writeFileNow(data.name, data.content, handler);
+        assert data.content != null || data.compressedContent != null;
+        writeNow(data, handler);
       }
     }
   }
@@ -81,14 +118,24 @@ public class ArchiveBuilder implements OutputBuilder {
     if (stream != null) {
       return stream;
     }
-    stream =
-        new ZipOutputStream(
-            new BufferedOutputStream(
-                Files.newOutputStream(
-                    archive, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)));
+    stream = new ZipOutputStream(openOutputStream());
     return stream;
   }
 
+  private PrecompressedZipWriter getPrecompressedWriterRaw() throws IOException {
+    if (precompressedWriter != null) {
+      return precompressedWriter;
+    }
+    precompressedWriter = new PrecompressedZipWriter(openOutputStream());
+    return precompressedWriter;
+  }
+
+  private BufferedOutputStream openOutputStream() throws IOException {
+    return new BufferedOutputStream(
+        Files.newOutputStream(
+            archive, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+  }
+
   /** Get or open the zip output stream. */
   private synchronized ZipOutputStream getStream() throws IOException {
     assert !closed;
@@ -115,10 +162,15 @@ public class ArchiveBuilder implements OutputBuilder {
     if (name.charAt(name.length() - 1) != DataResource.SEPARATOR) {
       name += DataResource.SEPARATOR;
     }
-    ZipEntry entry = new ZipEntry(name);
-    entry.setTime(0);
     synchronized (this) {
       try {
+        if (compressionMode != CompressionMode.SEQUENTIAL) {
+          assert !closed;
+          getPrecompressedWriterRaw().writeDirectory(name);
+          return;
+        }
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(0);
         ZipOutputStream zip = getStream();
         zip.putNextEntry(entry);
         zip.closeEntry();
@@ -132,8 +184,12 @@ public class ArchiveBuilder implements OutputBuilder {
   public void addFile(String name, DataEntryResource content, DiagnosticsHandler handler) {
     try (InputStream in = content.getByteStream()) {
       ByteDataView view = ByteDataView.of(ByteStreams.toByteArray(in));
+      DelayedData data =
+          compressionMode == CompressionMode.SEQUENTIAL
+              ? DelayedData.createFile(name, view)
+              : DelayedData.createCompressedFile(compress(name, view));
       synchronized (this) {
-        delayedWrites.add(DelayedData.createFile(name, view));
+        delayedWrites.add(data);
       }
     } catch (IOException e) {
       handleIOException(e, handler);
@@ -144,8 +200,22 @@ public class ArchiveBuilder implements OutputBuilder {
   }
 
   @Override
-  public synchronized void addFile(String name, ByteDataView content, DiagnosticsHandler handler) {
-    delayedWrites.add(DelayedData.createFile(name,  ByteDataView.of(content.copyByteData())));
+  public void addFile(String name, ByteDataView content, DiagnosticsHandler handler) {
+    // Compress outside the lock such that the callers compress concurrently.
+    DelayedData data =
+        compressionMode == CompressionMode.SEQUENTIAL
+            ? DelayedData.createFile(name, ByteDataView.of(content.copyByteData()))
+            : DelayedData.createCompressedFile(compress(name, content));
+    synchronized (this) {
+      delayedWrites.add(data);
+    }
+  }
+
+  private CompressedEntry compress(String name, ByteDataView content) {
+    return PrecompressedZipWriter.compress(
+        name,
+        content,
+        compressionMode == CompressionMode.STORED ? ZipEntry.STORED : ZipEntry.DEFLATED);
   }
 
   private void writeFileNow(String name, ByteDataView content, DiagnosticsHandler handler) {
@@ -156,27 +226,64 @@ public class ArchiveBuilder implements OutputBuilder {
     }
   }
 
+  private synchronized void writeCompressedFileNow(
+      CompressedEntry content, DiagnosticsHandler handler) {
+    assert !closed;
+    try {
+      getPrecompressedWriterRaw().writeEntry(content);
+    } catch (IOException e) {
+      handleIOException(e, handler);
+    }
+  }
+
+  private void writeNow(DelayedData data, DiagnosticsHandler handler) {
+    if (data.compressedContent != null) {
+      writeCompressedFileNow(data.compressedContent, handler);
+    } else {
+      writeFileNow(data.name, data.content, handler);
+    }
+  }
+
   private void writeNextIfAvailable(DiagnosticsHandler handler) {
     DelayedData data = delayedClassesDexFiles.remove(classesFileIndex);
     while (data != null) {
-      writeFileNow(data.name, data.content, handler);
+      writeNow(data, handler);
       classesFileIndex++;
       data = delayedClassesDexFiles.remove(classesFileIndex);
     }
   }
 
   @Override
-  public synchronized void addIndexedClassFile(
+  public void addIndexedClassFile(
       int index, String name, ByteDataView content, DiagnosticsHandler handler) {
+    if (compressionMode == CompressionMode.SEQUENTIAL) {
+      addIndexedClassFile(index, name, content, null, handler);
+    } else {
+      // Compress outside the lock such that the dex files are compressed concurrently.
+      addIndexedClassFile(index, name, null, compress(name, content), handler);
+    }
+  }
+
+  private synchronized void addIndexedClassFile(
+      int index,
+      String name,
+      ByteDataView content,
+      CompressedEntry compressedContent,
+      DiagnosticsHandler handler) {
     if (index == classesFileIndex) {
       // Fast case, we got the file in order (or we only had one).
-      writeFileNow(name, content, handler);
+      writeNow(new DelayedData(name, content, compressedContent, false), handler);
       classesFileIndex++;
       writeNextIfAvailable(handler);
     } else {
       // Data is released in the application writer, take a copy.
-      delayedClassesDexFiles.put(index,
-          new DelayedData(name, ByteDataView.of(content.copyByteData()), false));
+      delayedClassesDexFiles.put(
+          index,
+          new DelayedData(
+              name,
+              content != null ? ByteDataView.of(content.copyByteData()) : null,
+              compressedContent,
+              false));
     }
   }
 
@@ -193,19 +300,29 @@ public class ArchiveBuilder implements OutputBuilder {
   private static class DelayedData implements Comparable<DelayedData> {
     public final String name;
     public final ByteDataView content;
+    public final CompressedEntry compressedContent;
     public final boolean isDirectory;
 
     public static DelayedData createFile(String name, ByteDataView content) {
-      return new DelayedData(name, content, false);
+      return new DelayedData(name, content, null, false);
+    }
+
+    public static DelayedData createCompressedFile(CompressedEntry compressedContent) {
+      return new DelayedData(compressedContent.getName(), null, compressedContent, false);
     }
 
     public static DelayedData createDirectory(String name) {
-      return new DelayedData(name, null, true);
+      return new DelayedData(name, null, null, true);
     }
 
-    private DelayedData(String name, ByteDataView content, boolean isDirectory) {
+    private DelayedData(
+        String name,
+        ByteDataView content,
+        CompressedEntry compressedContent,
+        boolean isDirectory) {
       this.name = name;
       this.content = content;
+      this.compressedContent = compressedContent;
       this.isDirectory = isDirectory;
     }
 
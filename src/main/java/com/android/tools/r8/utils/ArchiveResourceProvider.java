@@ -54,32 +54,28 @@ public class ArchiveResourceProvider implements ProgramResourceProvider, DataRes
   private List<ProgramResource> readArchive() throws IOException {
     List<ProgramResource> dexResources = new ArrayList<>();
     List<ProgramResource> classResources = new ArrayList<>();
+    // Only the names of the entries are read here. The entries are inflated when the resources are
+    // read.
+    LazyArchiveProgramResources lazyResources =
+        new LazyArchiveProgramResources(
+            () -> FileUtils.createZipFile(archive.getPath().toFile(), StandardCharsets.UTF_8));
     try (ZipFile zipFile =
         FileUtils.createZipFile(archive.getPath().toFile(), StandardCharsets.UTF_8)) {
       final Enumeration<? extends ZipEntry> entries = zipFile.entries();
       while (entries.hasMoreElements()) {
         ZipEntry entry = entries.nextElement();
-        try (InputStream stream = zipFile.getInputStream(entry)) {
-          String name = entry.getName();
-          Origin entryOrigin = new ArchiveEntryOrigin(name, origin);
-          if (archive.matchesFile(name)) {
-            if (ZipUtils.isDexFile(name)) {
-              if (!ignoreDexInArchive) {
-                ProgramResource resource =
-                    OneShotByteResource.create(
-                        Kind.DEX, entryOrigin, ByteStreams.toByteArray(stream), null);
-                dexResources.add(resource);
-              }
-            } else if (ZipUtils.isClassFile(name)) {
-              String descriptor = DescriptorUtils.guessTypeDescriptor(name);
-              ProgramResource resource =
-                  OneShotByteResource.create(
-                      Kind.CF,
-                      entryOrigin,
-                      ByteStreams.toByteArray(stream),
-                      Collections.singleton(descriptor));
-              classResources.add(resource);
+        String name = entry.getName();
+        Origin entryOrigin = new ArchiveEntryOrigin(name, origin);
+        if (archive.matchesFile(name)) {
+          if (ZipUtils.isDexFile(name)) {
+            if (!ignoreDexInArchive) {
+              dexResources.add(lazyResources.createResource(Kind.DEX, entryOrigin, name, null));
             }
+          } else if (ZipUtils.isClassFile(name)) {
+            String descriptor = DescriptorUtils.guessTypeDescriptor(name);
+            classResources.add(
+                lazyResources.createResource(
+                    Kind.CF, entryOrigin, name, Collections.singleton(descriptor)));
           }
         }
       }
@@ -0,0 +1,129 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.graph.ClassFileSkeleton;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Cache of the class files in library and classpath archives, such that repeated compilations in
+ * the same process do not read the same archives again.
+ *
+ * <p>The cached data does not depend on the DexItemFactory of a compilation. It is the list of
+ * class file entries of an archive, the inflated content of the entries that have been read, and
+ * the skeletons of the library classes that have been parsed (see {@link ClassFileSkeleton}), such
+ * that repeated compilations do not parse the library classes again. The content and skeletons are
+ * softly referenced and can be reclaimed under memory pressure. An archive is identified by its
+ * path, and its cached data is dropped when the size or modification time of the file changes.
+ *
+ * <p>A process wide cache is used by all compilations when the system property
+ * com.android.tools.r8.classFileArchiveCache is set. Long running processes such as the D8 server
+ * instead create their own cache and set it on the compilations that they run.
+ */
+public class ClassFileArchiveCache {
+
+  static class CachedArchive {
+
+    private final long size;
+    private final long lastModifiedTime;
+    private final List<String> classEntryNames;
+    private final Map<String, SoftReference<byte[]>> contents = new ConcurrentHashMap<>();
+    private final Map<String, SoftReference<ClassFileSkeleton>> skeletons =
+        new ConcurrentHashMap<>();
+
+    private CachedArchive(long size, long lastModifiedTime, List<String> classEntryNames) {
+      this.size = size;
+      this.lastModifiedTime = lastModifiedTime;
+      this.classEntryNames = classEntryNames;
+    }
+
+    private boolean isUpToDate(BasicFileAttributes attributes) {
+      return size == attributes.size()
+          && lastModifiedTime == attributes.lastModifiedTime().toMillis();
+    }
+
+    boolean isUpToDate(Path archive) throws IOException {
+      return isUpToDate(Files.readAttributes(archive, BasicFileAttributes.class));
+    }
+
+    List<String> getClassEntryNames() {
+      return classEntryNames;
+    }
+
+    byte[] getContent(String entryName) {
+      SoftReference<byte[]> reference = contents.get(entryName);
+      return reference != null ? reference.get() : null;
+    }
+
+    void putContent(String entryName, byte[] content) {
+      contents.put(entryName, new SoftReference<>(content));
+    }
+
+    ClassFileSkeleton getSkeleton(String entryName, int parsingOptions) {
+      SoftReference<ClassFileSkeleton> reference = skeletons.get(entryName);
+      ClassFileSkeleton skeleton = reference != null ? reference.get() : null;
+      return skeleton != null && skeleton.getParsingOptions() == parsingOptions ? skeleton : null;
+    }
+
+    void putSkeleton(String entryName, ClassFileSkeleton skeleton) {
+      skeletons.put(entryName, new SoftReference<>(skeleton));
+    }
+  }
+
+  private static final ClassFileArchiveCache PROCESS_WIDE_CACHE =
+      System.getProperty("com.android.tools.r8.classFileArchiveCache") != null
+          ? new ClassFileArchiveCache()
+          : null;
+
+  private final Map<Path, CachedArchive> archives = new ConcurrentHashMap<>();
+
+  /** Returns the process wide cache, or null if it is not enabled. */
+  static ClassFileArchiveCache getProcessWideCache() {
+    return PROCESS_WIDE_CACHE;
+  }
+
+  CachedArchive get(Path archive) throws IOException {
+    Path key = archive.toAbsolutePath().normalize();
+    BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    CachedArchive cachedArchive = archives.get(key);
+    if (cachedArchive != null && cachedArchive.isUpToDate(attributes)) {
+      return cachedArchive;
+    }
+    // Concurrent compilations may both read the archive, in which case the last one is cached.
+    cachedArchive =
+        new CachedArchive(
+            attributes.size(),
+            attributes.lastModifiedTime().toMillis(),
+            readClassEntryNames(key));
+    archives.put(key, cachedArchive);
+    return cachedArchive;
+  }
+
+  private static List<String> readClassEntryNames(Path archive) throws IOException {
+    List<String> classEntryNames = new ArrayList<>();
+    try (ZipFile zipFile = FileUtils.createZipFile(archive.toFile(), StandardCharsets.UTF_8)) {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (ZipUtils.isClassFile(name)) {
+          classEntryNames.add(name);
+        }
+      }
+    }
+    return Collections.unmodifiableList(classEntryNames);
+  }
+}
@@ -9,7 +9,8 @@ import java.io.IOException;
 // Internal filtered class-file provider.
 class FilteredArchiveClassFileProvider extends InternalArchiveClassFileProvider {
 
-  FilteredArchiveClassFileProvider(FilteredClassPath archive) throws IOException {
-    super(archive.getPath(), archive::matchesFile);
+  FilteredArchiveClassFileProvider(FilteredClassPath archive, ClassFileArchiveCache cache)
+      throws IOException {
+    super(archive.getPath(), archive::matchesFile, cache);
   }
 }
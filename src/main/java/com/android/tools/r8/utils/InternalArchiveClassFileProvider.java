@@ -10,10 +10,13 @@ import com.android.tools.r8.ClassFileResourceProvider;
 import com.android.tools.r8.ProgramResource;
 import com.android.tools.r8.ProgramResource.Kind;
 import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.ClassFileSkeleton;
 import com.android.tools.r8.origin.ArchiveEntryOrigin;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.ClassFileArchiveCache.CachedArchive;
 import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -40,8 +43,11 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
   private final Path path;
   private final Origin origin;
   private final Set<String> descriptors = new HashSet<>();
+  private final CachedArchive cachedArchive;
 
   private ZipFile openedZipFile = null;
+  // Whether the opened archive is the archive that the cached archive was created from.
+  private boolean openedZipFileMatchesCache = false;
 
   /**
    * Creates a lazy class-file program-resource provider.
@@ -60,9 +66,32 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
    */
   public InternalArchiveClassFileProvider(Path archive, Predicate<String> include)
       throws IOException {
+    this(archive, include, ClassFileArchiveCache.getProcessWideCache());
+  }
+
+  /**
+   * Creates a lazy class-file program-resource provider that reads the archive through a cache.
+   *
+   * @param archive Zip archive to provide resources from.
+   * @param include Predicate deciding if a given class-file entry should be provided.
+   * @param cache Cache of the archive content, or null to read the archive directly.
+   */
+  InternalArchiveClassFileProvider(
+      Path archive, Predicate<String> include, ClassFileArchiveCache cache) throws IOException {
     assert isArchive(archive);
     path = archive;
     origin = new PathOrigin(archive);
+    if (cache != null) {
+      // The archive is only opened if a class file is not in the cache.
+      cachedArchive = cache.get(archive);
+      for (String name : cachedArchive.getClassEntryNames()) {
+        if (include.test(name)) {
+          descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
+        }
+      }
+      return;
+    }
+    cachedArchive = null;
     final Enumeration<? extends ZipEntry> entries = getOpenZipFile().entries();
     while (entries.hasMoreElements()) {
       ZipEntry entry = entries.nextElement();
@@ -83,17 +112,96 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
     if (!descriptors.contains(descriptor)) {
       return null;
     }
+    String entryName = getEntryNameFromDescriptor(descriptor);
+    Origin entryOrigin = new ArchiveEntryOrigin(entryName, origin);
+    if (cachedArchive != null) {
+      // The content is only read if the class has not been parsed before.
+      return new CachedClassFileResource(entryOrigin, entryName, descriptor);
+    }
+    return ProgramResource.fromBytes(
+        entryOrigin,
+        Kind.CF,
+        readContent(entryName, descriptor),
+        Collections.singleton(descriptor));
+  }
+
+  private byte[] readContent(String entryName, String descriptor) {
     try {
-      ZipEntry zipEntry = getZipEntryFromDescriptor(descriptor);
-      try (InputStream inputStream = getOpenZipFile().getInputStream(zipEntry)) {
-        return ProgramResource.fromBytes(
-            new ArchiveEntryOrigin(zipEntry.getName(), origin),
-            Kind.CF,
-            ByteStreams.toByteArray(inputStream),
-            Collections.singleton(descriptor));
+      ZipFile zipFile = getOpenZipFile();
+      ZipEntry zipEntry = zipFile.getEntry(entryName);
+      if (zipEntry == null) {
+        // The archive has changed since its entries were listed.
+        throw new CompilationError("Missing archive entry '" + entryName + "'", origin);
+      }
+      try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+        return ByteStreams.toByteArray(inputStream);
       }
     } catch (IOException e) {
-      throw new CompilationError("Failed to read '" + descriptor, origin);
+      throw new CompilationError("Failed to read '" + descriptor + "'", origin);
+    }
+  }
+
+  /**
+   * Resource for a class file of the cached archive, which reads the content through the cache
+   * and retains the skeleton of the class in the cache.
+   */
+  private class CachedClassFileResource implements ProgramResource, ClassFileSkeleton.Cache {
+
+    private final Origin origin;
+    private final String entryName;
+    private final String descriptor;
+
+    private CachedClassFileResource(Origin origin, String entryName, String descriptor) {
+      this.origin = origin;
+      this.entryName = entryName;
+      this.descriptor = descriptor;
+    }
+
+    @Override
+    public Origin getOrigin() {
+      return origin;
+    }
+
+    @Override
+    public Kind getKind() {
+      return Kind.CF;
+    }
+
+    @Override
+    public InputStream getByteStream() {
+      return new ByteArrayInputStream(getBytes());
+    }
+
+    @Override
+    public byte[] getBytes() {
+      byte[] bytes = cachedArchive.getContent(entryName);
+      if (bytes == null) {
+        bytes = readContent(entryName, descriptor);
+        if (openedZipFileMatchesCache) {
+          cachedArchive.putContent(entryName, bytes);
+        }
+      }
+      return bytes;
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return Collections.singleton(descriptor);
+    }
+
+    @Override
+    public ClassFileSkeleton get(int parsingOptions) {
+      return cachedArchive.getSkeleton(entryName, parsingOptions);
+    }
+
+    @Override
+    public void put(ClassFileSkeleton skeleton) {
+      // The skeleton is parsed from the cached content or from the opened archive. In the latter
+      // case it is only cached if the opened archive is the archive that the cache was created
+      // from.
+      if (openedZipFile == null || openedZipFileMatchesCache) {
+        cachedArchive.putSkeleton(entryName, skeleton);
+      }
     }
   }
 
@@ -108,18 +216,22 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
           throw e;
         }
       }
+      // Content read from an archive that has changed since the cached archive was created is
+      // not added to the cached archive.
+      openedZipFileMatchesCache = cachedArchive != null && cachedArchive.isUpToDate(path);
     }
     return openedZipFile;
   }
 
   @Override
   public void close() throws IOException {
-    openedZipFile.close();
-    openedZipFile = null;
+    if (openedZipFile != null) {
+      openedZipFile.close();
+      openedZipFile = null;
+    }
   }
 
-  private ZipEntry getZipEntryFromDescriptor(String descriptor) throws IOException {
-    return getOpenZipFile()
-        .getEntry(descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION);
+  private static String getEntryNameFromDescriptor(String descriptor) {
+    return descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION;
   }
 }
@@ -230,6 +230,21 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   // Flag to toggle if DEX code objects should pass-through without IR processing.
   public boolean passthroughDexCode = false;
 
+  // Flag to toggle if the code and debug info sections of a single DEX file should be encoded
+  // concurrently. The output is byte identical to the sequential writer.
+  public boolean enableParallelDexSectionWriting =
+      System.getProperty("com.android.tools.r8.parallelDexSectionWriting") != null;
+
+  // Flag to toggle if the code items of DEX inputs should only be parsed when the code of a
+  // method is first used, instead of when the class is read.
+  public boolean enableLazyDexCodeParsing =
+      System.getProperty("com.android.tools.r8.lazyDexCode") != null;
+
+  // Flag to toggle if chunks of the class definitions of a single DEX file should be parsed
+  // concurrently. The classes are added in the same order as by the sequential parser.
+  public boolean enableParallelDexClassParsing =
+      System.getProperty("com.android.tools.r8.parallelDexClassParsing") != null;
+
   // Flag to toggle if the prefix based merge restriction should be enforced.
   public boolean enableNeverMergePrefixes = true;
   public Set<String> neverMergePrefixes = ImmutableSet.of("j$.");
@@ -643,6 +658,13 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
    * because it's adding classes in the main dex to satisfy also DexOpt constraints.
    */
   public boolean enableInheritanceClassInDexDistributor = true;
+  /**
+   * Enable bin packing of classes into dex files for multidex builds that do not use the
+   * InheritanceClassInDexDistributor. This puts classes that share method and field ids in the
+   * same files and produces fewer and fuller files, at the cost of splitting packages.
+   */
+  public boolean enableBinPackingDexDistribution =
+      System.getProperty("com.android.tools.r8.binPackingDexDistribution") != null;
 
   public LineNumberOptimization lineNumberOptimization = LineNumberOptimization.ON;
 
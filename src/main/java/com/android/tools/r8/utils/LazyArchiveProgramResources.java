@@ -0,0 +1,164 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ArchiveProgramResourceProvider.ZipFileSupplier;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.origin.Origin;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Program resources for the entries of an archive, which only record the name of the entry and
+ * inflate the entry when the resource is read. The resources can be read concurrently.
+ *
+ * <p>The archive is opened by the first read and is kept open for the reads that follow, such that
+ * the central directory of the archive is only read once. It is closed when every resource has been
+ * read, or when the reading is finished by {@link #closeArchives}, e.g., if the compilation fails
+ * or does not read all resources.
+ */
+public class LazyArchiveProgramResources {
+
+  private final ZipFileSupplier supplier;
+
+  private ZipFile zipFile = null;
+  private int activeReads = 0;
+  private int unreadResources = 0;
+  private boolean readingFinished = false;
+
+  public LazyArchiveProgramResources(ZipFileSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  public synchronized ProgramResource createResource(
+      Kind kind, Origin origin, String entryName, Set<String> classDescriptors) {
+    unreadResources++;
+    return new LazyArchiveEntryResource(kind, origin, entryName, classDescriptors);
+  }
+
+  /** Closes the archives of the given resources that are still open once no read is in progress. */
+  public static void closeArchives(Collection<ProgramResource> resources) throws IOException {
+    Set<LazyArchiveProgramResources> archives = Sets.newIdentityHashSet();
+    for (ProgramResource resource : resources) {
+      if (resource instanceof LazyArchiveEntryResource) {
+        archives.add(((LazyArchiveEntryResource) resource).getArchive());
+      }
+    }
+    for (LazyArchiveProgramResources archive : archives) {
+      archive.finishReading();
+    }
+  }
+
+  private synchronized void finishReading() throws IOException {
+    readingFinished = true;
+    if (activeReads == 0) {
+      closeZipFile();
+    }
+  }
+
+  private synchronized ZipFile acquire() throws IOException {
+    if (zipFile == null) {
+      zipFile = supplier.open();
+    }
+    activeReads++;
+    return zipFile;
+  }
+
+  private synchronized void release(LazyArchiveEntryResource resource) throws IOException {
+    activeReads--;
+    if (!resource.hasBeenRead) {
+      resource.hasBeenRead = true;
+      unreadResources--;
+    }
+    if (activeReads == 0 && (unreadResources == 0 || readingFinished)) {
+      closeZipFile();
+    }
+  }
+
+  private void closeZipFile() throws IOException {
+    assert Thread.holdsLock(this);
+    if (zipFile != null) {
+      ZipFile current = zipFile;
+      zipFile = null;
+      current.close();
+    }
+  }
+
+  private byte[] read(LazyArchiveEntryResource resource) throws IOException {
+    ZipFile zipFile = acquire();
+    try {
+      ZipEntry entry = zipFile.getEntry(resource.entryName);
+      if (entry == null) {
+        throw new IOException("Missing archive entry '" + resource.entryName + "'");
+      }
+      // Only the lookup of the entry data is synchronized in ZipFile, the inflation is not.
+      try (InputStream stream = zipFile.getInputStream(entry)) {
+        return ByteStreams.toByteArray(stream);
+      }
+    } finally {
+      release(resource);
+    }
+  }
+
+  private class LazyArchiveEntryResource implements ProgramResource {
+
+    private final Kind kind;
+    private final Origin origin;
+    private final String entryName;
+    private final Set<String> classDescriptors;
+
+    // Guarded by the enclosing LazyArchiveProgramResources.
+    private boolean hasBeenRead = false;
+
+    private LazyArchiveEntryResource(
+        Kind kind, Origin origin, String entryName, Set<String> classDescriptors) {
+      this.kind = kind;
+      this.origin = origin;
+      this.entryName = entryName;
+      this.classDescriptors = classDescriptors;
+    }
+
+    private LazyArchiveProgramResources getArchive() {
+      return LazyArchiveProgramResources.this;
+    }
+
+    @Override
+    public Origin getOrigin() {
+      return origin;
+    }
+
+    @Override
+    public Kind getKind() {
+      return kind;
+    }
+
+    @Override
+    public InputStream getByteStream() throws ResourceException {
+      return new ByteArrayInputStream(getBytes());
+    }
+
+    @Override
+    public byte[] getBytes() throws ResourceException {
+      try {
+        return read(this);
+      } catch (IOException e) {
+        throw new ResourceException(origin, e);
+      }
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return classDescriptors;
+    }
+  }
+}
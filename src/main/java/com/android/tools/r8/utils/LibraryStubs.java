@@ -0,0 +1,125 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static com.android.tools.r8.utils.InternalOptions.ASM_VERSION;
+
+import com.google.common.io.ByteStreams;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Precomputed library stubs, a single file with an index of the classes of a library and a stub
+ * for each class.
+ *
+ * <p>A stub is a class file with the parts that are not read for library classes removed: code,
+ * private members, static initializers and field initial values. The format is
+ *
+ * <pre>
+ *   u4 magic, u4 version, u4 class count
+ *   for each class, sorted by descriptor:
+ *     u2 descriptor length, descriptor in UTF-8, u4 stub offset, u4 stub length
+ *   stubs
+ * </pre>
+ *
+ * <p>All numbers are big endian. See {@link LibraryStubsClassFileProvider} for reading the file.
+ */
+public class LibraryStubs {
+
+  public static final String EXTENSION = ".r8stubs";
+
+  static final int MAGIC = 0x52384c53; // "R8LS"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 12;
+
+  public static boolean isLibraryStubsFile(Path path) {
+    return path.getFileName().toString().toLowerCase().endsWith(EXTENSION);
+  }
+
+  /** Writes the stubs of all classes in the archive {@code library} to {@code output}. */
+  public static void write(Path library, Path output) throws IOException {
+    Map<String, byte[]> stubs = new TreeMap<>();
+    ZipUtils.iter(
+        library,
+        (entry, input) -> {
+          String name = entry.getName();
+          if (ZipUtils.isClassFile(name)) {
+            stubs.put(
+                DescriptorUtils.guessTypeDescriptor(name),
+                createStub(ByteStreams.toByteArray(input)));
+          }
+        });
+    write(stubs, output);
+  }
+
+  static void write(Map<String, byte[]> stubs, Path output) throws IOException {
+    int indexSize = 0;
+    for (String descriptor : stubs.keySet()) {
+      indexSize += 2 + descriptor.getBytes(StandardCharsets.UTF_8).length + 8;
+    }
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(stubs.size());
+      int offset = HEADER_SIZE + indexSize;
+      for (Map.Entry<String, byte[]> entry : stubs.entrySet()) {
+        byte[] descriptor = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        out.writeShort(descriptor.length);
+        out.write(descriptor);
+        out.writeInt(offset);
+        out.writeInt(entry.getValue().length);
+        offset += entry.getValue().length;
+      }
+      for (byte[] stub : stubs.values()) {
+        out.write(stub);
+      }
+    }
+  }
+
+  /**
+   * Creates the stub of a class file. This removes what JarClassFileReader does not read for
+   * library classes.
+   */
+  static byte[] createStub(byte[] classFile) {
+    ClassReader reader = new ClassReader(classFile);
+    // Do not pass the reader to the writer, such that the constant pool only contains the
+    // constants used by the stub.
+    ClassWriter writer = new ClassWriter(0);
+    reader.accept(
+        new ClassVisitor(ASM_VERSION, writer) {
+          @Override
+          public FieldVisitor visitField(
+              int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_PRIVATE) != 0) {
+              return null;
+            }
+            return super.visitField(access, name, descriptor, signature, null);
+          }
+
+          @Override
+          public MethodVisitor visitMethod(
+              int access, String name, String descriptor, String signature, String[] exceptions) {
+            if ((access & Opcodes.ACC_PRIVATE) != 0 || name.equals("<clinit>")) {
+              return null;
+            }
+            return super.visitMethod(access, name, descriptor, signature, exceptions);
+          }
+        },
+        ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+    return writer.toByteArray();
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static com.android.tools.r8.utils.FileUtils.CLASS_EXTENSION;
+
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.origin.ArchiveEntryOrigin;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Provider for the classes of a {@link LibraryStubs} file. The file is memory mapped and only the
+ * index is read up front. A stub is copied out of the file when its class is requested.
+ */
+class LibraryStubsClassFileProvider implements ClassFileResourceProvider {
+
+  private static final int NOT_FOUND = -1;
+
+  private final Origin origin;
+  private final ByteBuffer buffer;
+  // Maps each descriptor to the position of its stub in offsets and lengths.
+  private final Object2IntMap<String> index;
+  private final int[] offsets;
+  private final int[] lengths;
+
+  LibraryStubsClassFileProvider(Path file) throws IOException {
+    origin = new PathOrigin(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed.
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.remaining() < LibraryStubs.HEADER_SIZE
+        || buffer.getInt(0) != LibraryStubs.MAGIC
+        || buffer.getInt(4) != LibraryStubs.VERSION) {
+      throw new IOException("Invalid library stubs file '" + file + "'");
+    }
+    int count = buffer.getInt(8);
+    index = new Object2IntOpenHashMap<>(count);
+    index.defaultReturnValue(NOT_FOUND);
+    offsets = new int[count];
+    lengths = new int[count];
+    int position = LibraryStubs.HEADER_SIZE;
+    for (int i = 0; i < count; i++) {
+      int length = Short.toUnsignedInt(buffer.getShort(position));
+      byte[] descriptor = new byte[length];
+      ByteBuffer view = buffer.duplicate();
+      view.position(position + 2);
+      view.get(descriptor);
+      position += 2 + length;
+      offsets[i] = buffer.getInt(position);
+      lengths[i] = buffer.getInt(position + 4);
+      position += 8;
+      index.put(new String(descriptor, StandardCharsets.UTF_8), i);
+    }
+  }
+
+  @Override
+  public Set<String> getClassDescriptors() {
+    return Collections.unmodifiableSet(index.keySet());
+  }
+
+  @Override
+  public ProgramResource getProgramResource(String descriptor) {
+    int entry = index.getInt(descriptor);
+    if (entry == NOT_FOUND) {
+      return null;
+    }
+    byte[] bytes = new byte[lengths[entry]];
+    // Use a private view of the buffer, as the position is not safe to share between threads.
+    ByteBuffer view = buffer.duplicate();
+    view.position(offsets[entry]);
+    view.get(bytes);
+    return ProgramResource.fromBytes(
+        new ArchiveEntryOrigin(
+            descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION, origin),
+        Kind.CF,
+        bytes,
+        Collections.singleton(descriptor));
+  }
+}
@@ -0,0 +1,283 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ByteDataView;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Zip writer for entries which have been compressed up front by {@link #compress}. This allows
+ * compressing entries concurrently, and only appending the compressed data to the archive needs to
+ * be sequential. {@link java.util.zip.ZipOutputStream} does not support this, as it always
+ * compresses the data of an entry itself.
+ *
+ * <p>Entries are written with a fixed time of 1980-01-01 00:00, as the entries written by {@link
+ * ZipUtils#writeToZipStream}. Zip64 records are written when the number of entries or the offsets
+ * in the archive require it.
+ */
+public class PrecompressedZipWriter implements Closeable {
+
+  /** Compressed data of an entry and the information needed for the headers of the entry. */
+  public static class CompressedEntry {
+
+    private final String name;
+    private final int method;
+    private final byte[] data;
+    private final int dataLength;
+    private final long crc;
+    private final int size;
+
+    private CompressedEntry(
+        String name, int method, byte[] data, int dataLength, long crc, int size) {
+      this.name = name;
+      this.method = method;
+      this.data = data;
+      this.dataLength = dataLength;
+      this.crc = crc;
+      this.size = size;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private static class CentralDirectoryRecord {
+
+    private final byte[] name;
+    private final int method;
+    private final long crc;
+    private final long compressedSize;
+    private final long size;
+    private final long offset;
+
+    private CentralDirectoryRecord(
+        byte[] name, int method, long crc, long compressedSize, long size, long offset) {
+      this.name = name;
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.offset = offset;
+    }
+  }
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+  private static final int VERSION_STORED = 10;
+  private static final int VERSION_DEFLATED = 20;
+  private static final int VERSION_ZIP64 = 45;
+  // The names are encoded in UTF-8.
+  private static final int FLAG_UTF8 = 0x0800;
+  // 1980-01-01 00:00 in MS-DOS format.
+  private static final int DOS_TIME = 0;
+  private static final int DOS_DATE = (1 << 5) | 1;
+
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+  private final OutputStream out;
+  private final List<CentralDirectoryRecord> records = new ArrayList<>();
+  private final Set<String> names = new HashSet<>();
+  private long written = 0;
+
+  public PrecompressedZipWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Compresses the content of an entry. This does not depend on the state of any writer and can be
+   * called concurrently.
+   *
+   * @param name the name of the entry
+   * @param content the uncompressed content of the entry
+   * @param method {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}
+   */
+  public static CompressedEntry compress(String name, ByteDataView content, int method) {
+    byte[] buffer = content.getBuffer();
+    int offset = content.getOffset();
+    int length = content.getLength();
+    CRC32 crc = new CRC32();
+    crc.update(buffer, offset, length);
+    if (method == ZipEntry.STORED) {
+      byte[] data = new byte[length];
+      System.arraycopy(buffer, offset, data, 0, length);
+      return new CompressedEntry(name, method, data, length, crc.getValue(), length);
+    }
+    assert method == ZipEntry.DEFLATED;
+    // Same compression as used by ZipOutputStream.
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    ExposedByteArrayOutputStream data = new ExposedByteArrayOutputStream(length / 2 + 64);
+    try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(data, deflater)) {
+      deflaterStream.write(buffer, offset, length);
+    } catch (IOException e) {
+      // Writing to a byte array does not fail.
+      throw new RuntimeException(e);
+    } finally {
+      deflater.end();
+    }
+    return new CompressedEntry(
+        name, method, data.getBuffer(), data.size(), crc.getValue(), length);
+  }
+
+  public void writeEntry(CompressedEntry entry) throws IOException {
+    writeEntry(entry.name, entry.method, entry.data, entry.dataLength, entry.crc, entry.size);
+  }
+
+  public void writeDirectory(String name) throws IOException {
+    writeEntry(name, ZipEntry.STORED, new byte[0], 0, 0, 0);
+  }
+
+  private void writeEntry(
+      String name, int method, byte[] data, int dataLength, long crc, int size)
+      throws IOException {
+    if (!names.add(name)) {
+      // Same message as ZipOutputStream, which ArchiveBuilder reports as a warning.
+      throw new ZipException("duplicate entry: " + name);
+    }
+    byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+    if (encodedName.length > 0xFFFF) {
+      throw new ZipException("entry name too long: " + name);
+    }
+    CentralDirectoryRecord record =
+        new CentralDirectoryRecord(encodedName, method, crc, dataLength, size, written);
+    records.add(record);
+    writeInt(LOCAL_FILE_HEADER_SIGNATURE);
+    writeShort(version(method));
+    writeShort(FLAG_UTF8);
+    writeShort(method);
+    writeShort(DOS_TIME);
+    writeShort(DOS_DATE);
+    writeInt(crc);
+    writeInt(dataLength);
+    writeInt(size);
+    writeShort(encodedName.length);
+    writeShort(0);
+    writeBytes(encodedName, encodedName.length);
+    writeBytes(data, dataLength);
+  }
+
+  @Override
+  public void close() throws IOException {
+    long centralDirectoryOffset = written;
+    for (CentralDirectoryRecord record : records) {
+      boolean needsZip64 = record.offset >= ZIP64_MAGIC;
+      writeInt(CENTRAL_DIRECTORY_SIGNATURE);
+      writeShort(needsZip64 ? VERSION_ZIP64 : version(record.method));
+      writeShort(needsZip64 ? VERSION_ZIP64 : version(record.method));
+      writeShort(FLAG_UTF8);
+      writeShort(record.method);
+      writeShort(DOS_TIME);
+      writeShort(DOS_DATE);
+      writeInt(record.crc);
+      writeInt(record.compressedSize);
+      writeInt(record.size);
+      writeShort(record.name.length);
+      writeShort(needsZip64 ? 12 : 0);
+      // File comment length, disk number start, internal and external attributes.
+      writeShort(0);
+      writeShort(0);
+      writeShort(0);
+      writeInt(0);
+      writeInt(needsZip64 ? ZIP64_MAGIC : record.offset);
+      writeBytes(record.name, record.name.length);
+      if (needsZip64) {
+        writeShort(ZIP64_EXTRA_FIELD_ID);
+        writeShort(8);
+        writeLong(record.offset);
+      }
+    }
+    long centralDirectorySize = written - centralDirectoryOffset;
+    int count = records.size();
+    boolean needsZip64 =
+        count >= ZIP64_MAGIC_COUNT
+            || centralDirectoryOffset >= ZIP64_MAGIC
+            || centralDirectorySize >= ZIP64_MAGIC;
+    if (needsZip64) {
+      long zip64EndOfCentralDirectoryOffset = written;
+      writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+      // Size of the remaining record.
+      writeLong(44);
+      writeShort(VERSION_ZIP64);
+      writeShort(VERSION_ZIP64);
+      // Number of this disk and of the disk with the central directory.
+      writeInt(0);
+      writeInt(0);
+      writeLong(count);
+      writeLong(count);
+      writeLong(centralDirectorySize);
+      writeLong(centralDirectoryOffset);
+      writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+      writeInt(0);
+      writeLong(zip64EndOfCentralDirectoryOffset);
+      // Total number of disks.
+      writeInt(1);
+    }
+    writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    writeShort(0);
+    writeShort(0);
+    writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+    writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+    writeInt(Math.min(centralDirectorySize, ZIP64_MAGIC));
+    writeInt(Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+    // Comment length.
+    writeShort(0);
+    out.close();
+  }
+
+  private static int version(int method) {
+    return method == ZipEntry.STORED ? VERSION_STORED : VERSION_DEFLATED;
+  }
+
+  private void writeShort(int value) throws IOException {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+    written += 2;
+  }
+
+  private void writeInt(long value) throws IOException {
+    writeShort((int) (value & 0xFFFF));
+    writeShort((int) ((value >>> 16) & 0xFFFF));
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt(value & ZIP64_MAGIC);
+    writeInt(value >>> 32);
+  }
+
+  private void writeBytes(byte[] bytes, int length) throws IOException {
+    out.write(bytes, 0, length);
+    written += length;
+  }
+
+  private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private ExposedByteArrayOutputStream(int size) {
+      super(size);
+    }
+
+    private byte[] getBuffer() {
+      return buf;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.LazyArchiveProgramResources;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveProgramResourceProviderTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final byte[] A_BYTES = new byte[] {1, 2, 3};
+  private static final byte[] B_BYTES = new byte[] {4, 5};
+
+  private Path createJar() throws IOException {
+    Path jar = temporaryFolder.getRoot().toPath().resolve("classes.jar");
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("a/A.class"));
+      output.write(A_BYTES);
+      output.closeEntry();
+      output.putNextEntry(new ZipEntry("a/B.class"));
+      output.write(B_BYTES);
+      output.closeEntry();
+    }
+    return jar;
+  }
+
+  private static void assertClosed(ZipFile zipFile) {
+    try {
+      zipFile.entries();
+      fail("Expected the archive to be closed");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  private static ArchiveProgramResourceProvider createProvider(
+      Path jar, List<ZipFile> openedArchives) {
+    return ArchiveProgramResourceProvider.fromSupplier(
+        Origin.unknown(),
+        () -> {
+          ZipFile zipFile = new ZipFile(jar.toFile());
+          openedArchives.add(zipFile);
+          return zipFile;
+        });
+  }
+
+  private static void assertAllClosed(List<ZipFile> openedArchives) {
+    openedArchives.forEach(ArchiveProgramResourceProviderTest::assertClosed);
+  }
+
+  @Test
+  public void testLazyReading() throws Exception {
+    Path jar = createJar();
+    List<ZipFile> openedArchives = new ArrayList<>();
+    ArchiveProgramResourceProvider provider = createProvider(jar, openedArchives);
+    List<ProgramResource> resources = new ArrayList<>(provider.getProgramResources());
+    assertEquals(2, resources.size());
+    // Only the entry names have been read.
+    assertEquals(1, openedArchives.size());
+    assertAllClosed(openedArchives);
+
+    ProgramResource a = resources.get(0);
+    ProgramResource b = resources.get(1);
+    assertEquals("La/A;", a.getClassDescriptors().iterator().next());
+    assertArrayEquals(A_BYTES, a.getBytes());
+    assertEquals(2, openedArchives.size());
+    // The archive is kept open for the resource that has not been read yet.
+    openedArchives.get(1).entries();
+
+    assertArrayEquals(B_BYTES, b.getBytes());
+    assertEquals(2, openedArchives.size());
+    assertAllClosed(openedArchives);
+  }
+
+  @Test
+  public void testPartiallyConsumed() throws Exception {
+    Path jar = createJar();
+    List<ZipFile> openedArchives = new ArrayList<>();
+    ArchiveProgramResourceProvider provider = createProvider(jar, openedArchives);
+    List<ProgramResource> resources = new ArrayList<>(provider.getProgramResources());
+    assertEquals(2, resources.size());
+
+    assertArrayEquals(A_BYTES, resources.get(0).getBytes());
+    assertEquals(2, openedArchives.size());
+    // The archive is closed when reading is finished, even though one resource is never read.
+    LazyArchiveProgramResources.closeArchives(resources);
+    assertAllClosed(openedArchives);
+  }
+
+  @Test
+  public void testFailedRead() throws Exception {
+    Path jar = createJar();
+    List<ZipFile> openedArchives = new ArrayList<>();
+    ArchiveProgramResourceProvider provider = createProvider(jar, openedArchives);
+    List<ProgramResource> resources = new ArrayList<>(provider.getProgramResources());
+    assertEquals(2, resources.size());
+
+    // Replace the archive by an archive without the entries.
+    Files.delete(jar);
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("a/C.class"));
+      output.write(A_BYTES);
+      output.closeEntry();
+    }
+
+    try {
+      resources.get(0).getBytes();
+      fail("Expected the read of a missing entry to fail");
+    } catch (ResourceException e) {
+      // Expected.
+    }
+    assertEquals(2, openedArchives.size());
+    LazyArchiveProgramResources.closeArchives(resources);
+    assertAllClosed(openedArchives);
+  }
+}
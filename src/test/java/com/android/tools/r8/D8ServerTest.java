@@ -0,0 +1,123 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class D8ServerTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withApiLevel(AndroidApiLevel.B).build();
+  }
+
+  public D8ServerTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void testRepeatedCompilations() throws Exception {
+    Path program = temp.newFolder().toPath().resolve("program.jar");
+    writeClassesToJar(program, Main.class);
+    Path first = temp.newFolder().toPath().resolve("first.zip");
+    Path second = temp.newFolder().toPath().resolve("second.zip");
+    List<String> response =
+        serve(
+            compileRequest(program, first),
+            compileRequest(program, second),
+            "QUIT",
+            compileRequest(program, temp.newFolder().toPath().resolve("ignored.zip")));
+    List<String> statuses = getStatuses(response);
+    assertEquals(2, statuses.size());
+    assertTrue(statuses.stream().allMatch("OK"::equals));
+    for (Path output : new Path[] {first, second}) {
+      testForRuntime(parameters)
+          .addProgramFiles(output)
+          .run(parameters.getRuntime(), Main.class)
+          .assertSuccessWithOutputLines("Hello, world!");
+    }
+  }
+
+  @Test
+  public void testFailingCompilation() throws Exception {
+    Path missing = temp.getRoot().toPath().resolve("missing.jar");
+    Path program = temp.newFolder().toPath().resolve("program.jar");
+    writeClassesToJar(program, Main.class);
+    Path output = temp.newFolder().toPath().resolve("output.zip");
+    List<String> response =
+        serve(compileRequest(missing, output), compileRequest(program, output));
+    assertTrue(response.get(1).startsWith("Error: "));
+    // The service continues after a failing compilation.
+    assertEquals(2, getStatuses(response).size());
+    assertEquals("FAILED", getStatuses(response).get(0));
+    assertEquals("OK", getStatuses(response).get(1));
+  }
+
+  @Test
+  public void testMalformedRequest() throws Exception {
+    List<String> response = serve("COMPILE", "COMPILE x", "COMPILE 2", "--debug");
+    assertEquals(3, response.size());
+    assertTrue(response.get(0).startsWith("ERROR Invalid request"));
+    assertTrue(response.get(1).startsWith("ERROR Invalid number of arguments"));
+    assertEquals("ERROR Unexpected end of input", response.get(2));
+  }
+
+  private String compileRequest(Path program, Path output) {
+    return StringUtils.lines(
+            "COMPILE 7",
+            "--min-api",
+            Integer.toString(parameters.getApiLevel().getLevel()),
+            "--lib",
+            ToolHelper.getFirstSupportedAndroidJar(parameters.getApiLevel()).toString(),
+            "--output",
+            output.toString(),
+            program.toString())
+        .trim();
+  }
+
+  // Returns the status of each response, skipping the diagnostics that follow the status line.
+  private static List<String> getStatuses(List<String> response) {
+    List<String> statuses = new ArrayList<>();
+    int index = 0;
+    while (index < response.size()) {
+      String[] status = response.get(index).split(" ");
+      statuses.add(status[0]);
+      index += 1 + Integer.parseInt(status[1]);
+    }
+    return statuses;
+  }
+
+  private List<String> serve(String... requests) throws Exception {
+    D8Server server = new D8Server(ThreadUtils.NOT_SPECIFIED);
+    try {
+      StringWriter output = new StringWriter();
+      server.serve(new StringReader(StringUtils.lines(requests)), output);
+      return StringUtils.splitLines(output.toString());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  static class Main {
+    public static void main(String[] args) {
+      System.out.println("Hello, world!");
+    }
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.d8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+@RunWith(Parameterized.class)
+public class BinPackingDexDistributionTest extends TestBase {
+
+  // Each class references 20000 methods, so three classes that do not share references fill a dex
+  // file, and a fourth does not fit.
+  private static final int REFERENCES_PER_CLASS = 20000;
+  private static final int REFERENCES_PER_METHOD = 10000;
+
+  // The classes in package order, and the set of methods that each class references. The class in
+  // p5 references the same methods as the class in p1.
+  private static final String[] PACKAGES = {"p1", "p2", "p3", "p4", "p5", "p6", "p7"};
+  private static final String[] REFERENCED_SETS = {"X", "Y", "Z", "W", "X", "V", "T"};
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public BinPackingDexDistributionTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void testPackageSplit() throws Exception {
+    // The class in p5 is added to the current file, which is the second file. This leaves no room
+    // for the class in p7 in any of the two files.
+    Map<String, String> classToDexFile = compile(false);
+    assertEquals(3, getNumberOfDexFiles(classToDexFile));
+    assertNotEquals(classToDexFile.get(className("p1")), classToDexFile.get(className("p5")));
+  }
+
+  @Test
+  public void testBinPacking() throws Exception {
+    // The class in p5 only adds its own methods to the file of the class in p1.
+    Map<String, String> classToDexFile = compile(true);
+    assertEquals(2, getNumberOfDexFiles(classToDexFile));
+    assertEquals(classToDexFile.get(className("p1")), classToDexFile.get(className("p5")));
+  }
+
+  private Map<String, String> compile(boolean enableBinPackingDexDistribution) throws Exception {
+    Path outputDir = temp.newFolder().toPath();
+    byte[][] classes = new byte[PACKAGES.length][];
+    for (int i = 0; i < PACKAGES.length; i++) {
+      classes[i] = generateClass(PACKAGES[i], REFERENCED_SETS[i]);
+    }
+    testForD8()
+        .addProgramClassFileData(classes)
+        .addOptionsModification(
+            options -> options.enableBinPackingDexDistribution = enableBinPackingDexDistribution)
+        .release()
+        .setMinApi(AndroidApiLevel.L)
+        .compile()
+        .writeToDirectory(outputDir);
+    Map<String, String> classToDexFile = new HashMap<>();
+    for (int i = 1; Files.exists(outputDir.resolve(dexFileName(i))); i++) {
+      for (String name : classNamesFromDexFile(outputDir.resolve(dexFileName(i)))) {
+        assertNull(classToDexFile.put(name, dexFileName(i)));
+      }
+    }
+    assertEquals(PACKAGES.length, classToDexFile.size());
+    return classToDexFile;
+  }
+
+  private static int getNumberOfDexFiles(Map<String, String> classToDexFile) {
+    return (int) classToDexFile.values().stream().distinct().count();
+  }
+
+  private static String dexFileName(int index) {
+    return index == 1 ? "classes.dex" : "classes" + index + ".dex";
+  }
+
+  private static String className(String pkg) {
+    return "com.example." + pkg + ".Main";
+  }
+
+  // Generates a class with static methods that invoke the methods of the referenced set.
+  private static byte[] generateClass(String pkg, String referencedSet) {
+    ClassWriter cw = new ClassWriter(0);
+    cw.visit(
+        Opcodes.V1_8,
+        Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+        "com/example/" + pkg + "/Main",
+        null,
+        "java/lang/Object",
+        null);
+    for (int i = 0; i < REFERENCES_PER_CLASS / REFERENCES_PER_METHOD; i++) {
+      MethodVisitor mv =
+          cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + i, "()V", null, null);
+      mv.visitCode();
+      for (int j = 0; j < REFERENCES_PER_METHOD; j++) {
+        mv.visitMethodInsn(
+            Opcodes.INVOKESTATIC,
+            "com/example/lib/" + referencedSet,
+            "m" + (i * REFERENCES_PER_METHOD + j),
+            "()V",
+            false);
+      }
+      mv.visitInsn(Opcodes.RETURN);
+      mv.visitMaxs(0, 0);
+      mv.visitEnd();
+    }
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+}
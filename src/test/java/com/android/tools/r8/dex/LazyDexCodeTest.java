@@ -0,0 +1,173 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.LazyDexCode;
+import com.android.tools.r8.shaking.Enqueuer;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.Timing;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class LazyDexCodeTest extends TestBase {
+
+  private static final String[] EXPECTED = {"Hello, world!", "42"};
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withAllApiLevels().build();
+  }
+
+  public LazyDexCodeTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  private Path compileToDex() throws Exception {
+    return testForD8()
+        .addProgramClasses(Main.class, A.class)
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .writeToZip();
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    testForD8()
+        .addProgramFiles(compileToDex())
+        .addOptionsModification(options -> options.enableLazyDexCodeParsing = true)
+        .setMinApi(parameters.getApiLevel())
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines(EXPECTED);
+  }
+
+  @Test
+  public void testR8() throws Exception {
+    testForR8(parameters.getBackend())
+        .addProgramFiles(compileToDex())
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(options -> options.enableLazyDexCodeParsing = true)
+        .setMinApi(parameters.getApiLevel())
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines(EXPECTED);
+  }
+
+  @Test
+  public void testPrunedMethodNotParsed() throws Exception {
+    Path dex = compileToDex();
+    List<Enqueuer.Mode> modes = new ArrayList<>();
+    testForR8(parameters.getBackend())
+        .addProgramFiles(dex)
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options.enableLazyDexCodeParsing = true;
+              options.testing.enqueuerInspector =
+                  (appInfo, mode) -> {
+                    if (!mode.isInitialTreeShaking()) {
+                      return;
+                    }
+                    modes.add(mode);
+                    DexClass clazz =
+                        appInfo.definitionFor(buildType(A.class, appInfo.dexItemFactory()));
+                    DexEncodedMethod unused =
+                        clazz.lookupVirtualMethod(
+                            method -> method.getName().toString().equals("unused"));
+                    // The method is not live, so its code has not been needed yet.
+                    assertFalse(appInfo.isLiveMethod(unused.getReference()));
+                    assertFalse(((LazyDexCode) unused.getCode()).hasBeenParsed());
+                  };
+            })
+        .setMinApi(parameters.getApiLevel())
+        .compile();
+    assertEquals(1, modes.size());
+  }
+
+  @Test
+  public void testEqualsEagerCode() throws Exception {
+    Path dex = compileToDex();
+    List<DexEncodedMethod> eager = readMethods(dex, false);
+    List<DexEncodedMethod> lazy = readMethods(dex, true);
+    assertEquals(eager.size(), lazy.size());
+    for (int i = 0; i < eager.size(); i++) {
+      assertEquals(eager.get(i).getCode(), lazy.get(i).getCode());
+      assertEquals(lazy.get(i).getCode(), eager.get(i).getCode());
+      assertEquals(eager.get(i).getCode().hashCode(), lazy.get(i).getCode().hashCode());
+    }
+  }
+
+  @Test
+  public void testSameCodeAsEagerParsing() throws Exception {
+    Path dex = compileToDex();
+    List<String> eager = readCode(dex, false);
+    List<String> lazy = readCode(dex, true);
+    assertEquals(eager, lazy);
+  }
+
+  private List<String> readCode(Path dex, boolean lazy) throws Exception {
+    List<String> code = new ArrayList<>();
+    for (DexEncodedMethod method : readMethods(dex, lazy)) {
+      assertEquals(lazy, method.getCode() instanceof LazyDexCode);
+      assertTrue(method.getCode().isDexCode());
+      // The parsed code is retained after the first use.
+      assertSame(method.getCode().asDexCode(), method.getCode().asDexCode());
+      code.add(method.getCode().asDexCode().toString(method, null));
+    }
+    return code;
+  }
+
+  private List<DexEncodedMethod> readMethods(Path dex, boolean lazy) throws Exception {
+    InternalOptions options = new InternalOptions();
+    options.enableLazyDexCodeParsing = lazy;
+    DexApplication application =
+        new ApplicationReader(
+                AndroidApp.builder().addProgramFiles(dex).build(), options, Timing.empty())
+            .read();
+    List<DexEncodedMethod> methods = new ArrayList<>();
+    for (DexProgramClass clazz : application.classesWithDeterministicOrder()) {
+      for (DexEncodedMethod method : clazz.methods()) {
+        if (method.getCode() != null) {
+          methods.add(method);
+        }
+      }
+    }
+    return methods;
+  }
+
+  static class A {
+    int value() {
+      return 42;
+    }
+
+    int unused() {
+      return 0;
+    }
+  }
+
+  static class Main {
+    public static void main(String[] args) {
+      System.out.println("Hello, world!");
+      System.out.println(new A().value());
+    }
+  }
+}
@@ -0,0 +1,139 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+@RunWith(Parameterized.class)
+public class ParallelDexClassParsingTest extends TestBase {
+
+  // More than the number of class definitions parsed by a single task.
+  private static final int NUMBER_OF_CLASSES = 1000;
+
+  private final TestParameters parameters;
+  private final boolean lazyDexCode;
+
+  @Parameterized.Parameters(name = "{0}, lazy: {1}")
+  public static List<Object[]> data() {
+    return buildParameters(getTestParameters().withNoneRuntime().build(), BooleanUtils.values());
+  }
+
+  public ParallelDexClassParsingTest(TestParameters parameters, boolean lazyDexCode) {
+    this.parameters = parameters;
+    this.lazyDexCode = lazyDexCode;
+  }
+
+  @Test
+  public void testSameClassesAsSequentialParsing() throws Exception {
+    parameters.assertNoneRuntime();
+    byte[] dex = compileClasses();
+    InternalOptions options = new InternalOptions();
+    options.enableLazyDexCodeParsing = lazyDexCode;
+
+    List<DexProgramClass> sequential = new ArrayList<>();
+    createParser(dex, options).addClassDefsTo(sequential::add);
+
+    List<DexProgramClass> concurrent = new ArrayList<>();
+    ExecutorService executor = ThreadUtils.getExecutorService(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      createParser(dex, options).addClassDefsTo(concurrent::add, executor, futures);
+      ThreadUtils.awaitFutures(futures);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(NUMBER_OF_CLASSES, concurrent.size());
+    assertEquals(sequential.size(), concurrent.size());
+    for (int i = 0; i < sequential.size(); i++) {
+      DexProgramClass expected = sequential.get(i);
+      DexProgramClass actual = concurrent.get(i);
+      assertSame(expected.getType(), actual.getType());
+      assertEquals(describeMethods(expected), describeMethods(actual));
+      // The type list of the interfaces is shared by all classes in the DEX file, and it is also
+      // shared by the classes parsed in different chunks.
+      assertSame(concurrent.get(0).interfaces, actual.interfaces);
+    }
+  }
+
+  private static DexParser<DexProgramClass> createParser(byte[] dex, InternalOptions options) {
+    DexParser<DexProgramClass> parser =
+        new DexParser<>(new DexReader(Origin.unknown(), dex), ClassKind.PROGRAM, options);
+    parser.populateIndexTables();
+    return parser;
+  }
+
+  private static List<String> describeMethods(DexProgramClass clazz) {
+    List<String> methods = new ArrayList<>();
+    for (DexEncodedMethod method : clazz.methods()) {
+      methods.add(method.getReference().toSourceString());
+      methods.add(method.getCode().asDexCode().toString(method, null));
+    }
+    return methods;
+  }
+
+  private byte[] compileClasses() throws Exception {
+    List<byte[]> classes = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_CLASSES; i++) {
+      classes.add(createClass("test/C" + i, i));
+    }
+    return testForD8()
+        .addProgramClassFileData(classes)
+        .compile()
+        .getApp()
+        .getDexProgramResourcesForTesting()
+        .get(0)
+        .getBytes();
+  }
+
+  private static byte[] createClass(String name, int value) {
+    ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    writer.visit(
+        Opcodes.V1_8,
+        Opcodes.ACC_PUBLIC,
+        name,
+        null,
+        "java/lang/Object",
+        new String[] {"java/lang/Runnable"});
+    MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    constructor.visitCode();
+    constructor.visitVarInsn(Opcodes.ALOAD, 0);
+    constructor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    constructor.visitInsn(Opcodes.RETURN);
+    constructor.visitMaxs(0, 0);
+    constructor.visitEnd();
+    MethodVisitor run = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null);
+    run.visitCode();
+    run.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+    run.visitLdcInsn(value);
+    run.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V", false);
+    run.visitInsn(Opcodes.RETURN);
+    run.visitMaxs(0, 0);
+    run.visitEnd();
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.CompilationMode;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.ArrayUtilsTest;
+import com.android.tools.r8.utils.ListUtils;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class ParallelDexSectionWritingTest extends TestBase {
+
+  private final TestParameters parameters;
+  private final CompilationMode mode;
+
+  @Parameterized.Parameters(name = "{0}, mode: {1}")
+  public static List<Object[]> data() {
+    return buildParameters(
+        getTestParameters().withNoneRuntime().build(), CompilationMode.values());
+  }
+
+  public ParallelDexSectionWritingTest(TestParameters parameters, CompilationMode mode) {
+    this.parameters = parameters;
+    this.mode = mode;
+  }
+
+  @Test
+  public void testIdenticalOutput() throws Exception {
+    List<byte[]> sequential = compile(false);
+    List<byte[]> concurrent = compile(true);
+    assertEquals(sequential.size(), concurrent.size());
+    for (int i = 0; i < sequential.size(); i++) {
+      assertArrayEquals(sequential.get(i), concurrent.get(i));
+    }
+  }
+
+  private List<byte[]> compile(boolean enableParallelDexSectionWriting) throws Exception {
+    // The utils test package has enough methods to span several chunks of code items.
+    AndroidApp app =
+        testForD8()
+            .addProgramFiles(
+                ToolHelper.getClassFilesForTestPackage(ArrayUtilsTest.class.getPackage()))
+            .setMode(mode)
+            .addOptionsModification(
+                options ->
+                    options.enableParallelDexSectionWriting = enableParallelDexSectionWriting)
+            .compile()
+            .getApp();
+    return ListUtils.map(app.getDexProgramResourcesForTesting(), this::readBytes);
+  }
+
+  private byte[] readBytes(ProgramResource resource) {
+    try {
+      return resource.getBytes();
+    } catch (ResourceException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.naming;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.utils.ChainableStringConsumer;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.concurrent.ExecutorService;
+import org.junit.Test;
+
+public class ClassNameMapperConcurrentWriteTest extends TestBase {
+
+  @Test
+  public void testIdenticalOutput() throws Exception {
+    // Use enough classes to span several write batches.
+    StringBuilder mapping = new StringBuilder();
+    for (int i = 0; i < 2500; i++) {
+      mapping
+          .append("com.example.Class")
+          .append(i)
+          .append(" -> a.")
+          .append(i)
+          .append(":\n    int field -> a\n    1:2:void method():10:11 -> b\n");
+    }
+    ClassNameMapper mapper = ClassNameMapper.mapperFromString(mapping.toString()).sorted();
+    StringBuilder concurrent = new StringBuilder();
+    ExecutorService executorService = ThreadUtils.getExecutorService(4);
+    try {
+      mapper.write(ChainableStringConsumer.wrap(concurrent::append), executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    assertEquals(mapper.toString(), concurrent.toString());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.naming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.naming.ClassNamingForNameMapper.MappedRange;
+import com.android.tools.r8.naming.ClassNamingForNameMapper.MappedRangesOfName;
+import com.android.tools.r8.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.junit.Test;
+
+public class MappedRangesOfNameLookupTest extends TestBase {
+
+  private static final String MAPPING =
+      StringUtils.lines(
+          "com.example.Foo -> a:",
+          "    void noLines() -> a",
+          "    20:22:void bar():10:12 -> a",
+          "    20:22:void baz():30 -> a",
+          "    1:3:void foo():40:42 -> a",
+          "    5:5:void qux():50:50 -> a",
+          "com.example.Bar -> b:",
+          "    1:10:void foo():40:49 -> a",
+          "    5:15:void bar():10:20 -> a",
+          "    void noLines() -> a");
+
+  private MappedRangesOfName getRanges(String className) throws Exception {
+    return ClassNameMapper.mapperFromString(MAPPING)
+        .getClassNaming(className)
+        .getMappedRangesForRenamedName("a");
+  }
+
+  @Test
+  public void testNonOverlappingRanges() throws Exception {
+    MappedRangesOfName ranges = getRanges("a");
+    List<MappedRange> forLine21 = ranges.allRangesForLine(21);
+    assertEquals(2, forLine21.size());
+    assertEquals("bar", forLine21.get(0).signature.name);
+    assertEquals("baz", forLine21.get(1).signature.name);
+    assertEquals("foo", ranges.allRangesForLine(1).get(0).signature.name);
+    assertEquals("qux", ranges.allRangesForLine(5).get(0).signature.name);
+    assertEquals("noLines", ranges.allRangesForLine(4).get(0).signature.name);
+    assertTrue(ranges.allRangesForLine(4, false).isEmpty());
+    assertTrue(ranges.allRangesForLine(100, false).isEmpty());
+    verifyAgainstLinearLookup(ranges);
+  }
+
+  @Test
+  public void testOverlappingRanges() throws Exception {
+    MappedRangesOfName ranges = getRanges("b");
+    assertEquals("foo", ranges.allRangesForLine(7).get(0).signature.name);
+    assertEquals("bar", ranges.allRangesForLine(12).get(0).signature.name);
+    verifyAgainstLinearLookup(ranges);
+  }
+
+  private void verifyAgainstLinearLookup(MappedRangesOfName ranges) {
+    for (int line = -1; line < 30; line++) {
+      assertEquals(linearLookup(ranges, line, true), ranges.allRangesForLine(line, true));
+      assertEquals(linearLookup(ranges, line, false), ranges.allRangesForLine(line, false));
+    }
+  }
+
+  private static List<MappedRange> linearLookup(
+      MappedRangesOfName ranges, int line, boolean takeFirstWithNoLineRange) {
+    List<MappedRange> mappedRanges = ranges.getMappedRanges();
+    MappedRange noLineRange = null;
+    for (int i = 0; i < mappedRanges.size(); i++) {
+      MappedRange range = mappedRanges.get(i);
+      if (range.minifiedRange == null) {
+        if (noLineRange == null && takeFirstWithNoLineRange) {
+          noLineRange = range;
+        }
+      } else if (range.minifiedRange.contains(line)) {
+        List<MappedRange> result = new ArrayList<>();
+        for (int j = i; j < mappedRanges.size(); j++) {
+          if (!Objects.equals(mappedRanges.get(j).minifiedRange, range.minifiedRange)) {
+            break;
+          }
+          result.add(mappedRanges.get(j));
+        }
+        return result;
+      }
+    }
+    return noLineRange == null ? Collections.emptyList() : Collections.singletonList(noLineRange);
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.DEFAULT_REGULAR_EXPRESSION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.retrace.internal.RetracerCache;
+import com.android.tools.r8.utils.StringUtils;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class RetraceServerTest extends TestBase {
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public RetraceServerTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private Path writeMapping(String originalClass) throws Exception {
+    Path mappingFile = temp.newFile().toPath();
+    Files.write(
+        mappingFile,
+        StringUtils.lines(originalClass + " -> a:", "    1:1:void bar():42:42 -> a").getBytes());
+    return mappingFile;
+  }
+
+  private List<String> serve(RetraceServer server, String... requests) throws Exception {
+    StringWriter output = new StringWriter();
+    server.serve(new StringReader(StringUtils.lines(requests)), output);
+    return StringUtils.splitLines(output.toString());
+  }
+
+  @Test
+  public void testRequests() throws Exception {
+    Path foo = writeMapping("com.example.Foo");
+    Path bar = writeMapping("com.example.Bar");
+    RetraceServer server = new RetraceServer(1024 * 1024, DEFAULT_REGULAR_EXPRESSION, false);
+    List<String> responses =
+        serve(
+            server,
+            "RETRACE 2 " + foo,
+            "java.lang.RuntimeException: foo",
+            "\tat a.a(SourceFile:1)",
+            "RETRACE 1 " + bar,
+            "\tat a.a(SourceFile:1)",
+            "RETRACE 1 " + temp.getRoot().toPath().resolve("missing.map"),
+            "\tat a.a(SourceFile:1)",
+            "RETRACE x " + foo,
+            "RETRACE 1 " + foo,
+            "\tat a.a(SourceFile:1)",
+            "QUIT",
+            "RETRACE 1 " + foo,
+            "\tat a.a(SourceFile:1)");
+    assertEquals(9, responses.size());
+    assertEquals("OK 2", responses.get(0));
+    assertEquals("java.lang.RuntimeException: foo", responses.get(1));
+    assertTrue(responses.get(2).contains("com.example.Foo.bar("));
+    assertTrue(responses.get(2).contains(":42)"));
+    assertEquals("OK 1", responses.get(3));
+    assertTrue(responses.get(4).contains("com.example.Bar.bar("));
+    assertTrue(responses.get(5).startsWith("ERROR "));
+    assertTrue(responses.get(6).startsWith("ERROR "));
+    assertEquals("OK 1", responses.get(7));
+    assertEquals(responses.get(2), responses.get(8));
+  }
+
+  @Test
+  public void testCacheEviction() {
+    RetracerCache cache = new RetracerCache(10);
+    AtomicInteger created = new AtomicInteger();
+    cache.getOrCreate("a", 4, () -> createRetracer(created));
+    cache.getOrCreate("b", 4, () -> createRetracer(created));
+    // Using "a" makes "b" the least recently used entry.
+    cache.getOrCreate("a", 4, () -> createRetracer(created));
+    assertEquals(2, created.get());
+    cache.getOrCreate("c", 4, () -> createRetracer(created));
+    assertEquals(3, created.get());
+    assertTrue(cache.contains("a"));
+    assertFalse(cache.contains("b"));
+    assertTrue(cache.contains("c"));
+    assertEquals(8, cache.getTotalWeight());
+    // An entry larger than the capacity evicts everything else but is still cached.
+    cache.getOrCreate("d", 20, () -> createRetracer(created));
+    assertEquals(1, cache.size());
+    assertTrue(cache.contains("d"));
+    assertEquals(20, cache.getTotalWeight());
+  }
+
+  private static Retracer createRetracer(AtomicInteger created) {
+    created.incrementAndGet();
+    return Retracer.createDefault(() -> "", new DiagnosticsHandler() {});
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.DEFAULT_REGULAR_EXPRESSION;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class StackTraceFrameLineParserTest extends TestBase {
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public StackTraceFrameLineParserTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private static final List<String> LINES =
+      ImmutableList.of(
+          "\tat com.example.Foo.bar(Foo.java:42)",
+          "at a.b(:7)",
+          "    at a.b.c.d(SourceFile)",
+          "    at a.b.c.d(Unknown Source)",
+          "    at a.b.c.d(Native Method)",
+          "    at a.b.c.d()",
+          "    at a.b.c.<init>(Foo.java:1)",
+          "    at a.b.c.<clinit>(Foo.java)",
+          "    at a.b.c.d (Foo.java:12)  ",
+          "    at a.b.c.d(Foo.java:)",
+          "    at a.b.c.d(Foo:bar.java:12)",
+          "    at a.b.c.d(Foo::12)",
+          "    at a.b.c.d(Foo:1:12)",
+          "    at a.b.c.d(Foo.java:12) ~[foo.jar:?]",
+          "    at a.b.c.d(Foo.java:1)x",
+          "    at Suppressed.d(Foo.java:1)",
+          "    at $a.b$c.d$1(Foo.java:1)",
+          "    at a..b(Foo.java:1)",
+          "    at a(Foo.java:1)",
+          "    at a.b.c.d(Foo.java:12)(Bar.java:13)",
+          "01-01 00:00:00.000  1234  5678 E AndroidRuntime: \tat a.b.c(Foo.java:42)",
+          "E/AndroidRuntime( 1234): \tat a.b.c(Foo.java:42)",
+          "Process: com.example, PID: 1234 at a.b.c(Foo.java:42)",
+          "what at a.b.c(Foo.java:42)",
+          "that at a.b.c(Foo.java:42)",
+          "(at a.b.c(Foo.java:42)",
+          "at at a.b.c(Foo.java:42)",
+          "java.lang.RuntimeException: at a.b.c(Foo.java:42)",
+          "java.lang.RuntimeException: foo",
+          "Caused by: a.b.c: at nothing",
+          "a.b.c",
+          "");
+
+  @Test
+  public void testSameResultAsRegularExpression() {
+    StackTraceLineParser<String, StackTraceElementStringProxy> defaultParser =
+        StackTraceLineParser.createRegularExpressionParser(DEFAULT_REGULAR_EXPRESSION);
+    // An equivalent regular expression which is not recognized as the default one.
+    StackTraceLineParser<String, StackTraceElementStringProxy> regularExpressionParser =
+        StackTraceLineParser.createRegularExpressionParser(
+            "(?:" + DEFAULT_REGULAR_EXPRESSION + ")");
+    for (String line : LINES) {
+      assertEquals(
+          line,
+          describe(regularExpressionParser.parse(line)),
+          describe(defaultParser.parse(line)));
+    }
+  }
+
+  private static String describe(StackTraceElementStringProxy proxy) {
+    return (proxy.hasClassName() ? proxy.getClassReference().getTypeName() : "<none>")
+        + "|"
+        + (proxy.hasMethodName() ? proxy.getMethodName() : "<none>")
+        + "|"
+        + (proxy.hasFileName() ? proxy.getFileName() : "<none>")
+        + "|"
+        + (proxy.hasLineNumber() ? proxy.lineNumberAsString() : "<none>");
+  }
+}
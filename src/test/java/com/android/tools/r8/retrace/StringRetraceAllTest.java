@@ -0,0 +1,48 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestDiagnosticMessagesImpl;
+import com.android.tools.r8.retrace.stacktraces.ActualRetraceBotStackTrace;
+import com.android.tools.r8.retrace.stacktraces.StackTraceForTest;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.Test;
+
+public class StringRetraceAllTest extends TestBase {
+
+  @Test
+  public void testRetraceAll() {
+    StackTraceForTest stackTraceForTest = new ActualRetraceBotStackTrace();
+    TestDiagnosticMessagesImpl diagnosticsHandler = new TestDiagnosticMessagesImpl();
+    StringRetrace stringRetrace =
+        StringRetrace.create(
+            RetraceOptions.builder(diagnosticsHandler)
+                .setProguardMapProducer(stackTraceForTest::mapping)
+                .build());
+    // Use prefixes of the stack trace to get independent stack traces of different lengths.
+    List<String> obfuscatedStackTrace = stackTraceForTest.obfuscatedStackTrace();
+    List<List<String>> stackTraces = new ArrayList<>();
+    for (int i = 1; i <= obfuscatedStackTrace.size(); i++) {
+      stackTraces.add(obfuscatedStackTrace.subList(0, i));
+    }
+    ExecutorService executorService = ThreadUtils.getExecutorService(4);
+    List<List<String>> retracedStackTraces;
+    try {
+      retracedStackTraces = stringRetrace.retraceAll(stackTraces, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    assertEquals(stackTraces.size(), retracedStackTraces.size());
+    for (int i = 0; i < stackTraces.size(); i++) {
+      assertEquals(stringRetrace.retrace(stackTraces.get(i)), retracedStackTraces.get(i));
+    }
+  }
+}
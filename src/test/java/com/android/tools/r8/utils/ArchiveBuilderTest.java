@@ -0,0 +1,159 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.DataEntryResource;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.ArchiveBuilder.CompressionMode;
+import com.google.common.io.ByteStreams;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class ArchiveBuilderTest extends TestBase {
+
+  private static final int NUMBER_OF_DEX_FILES = 8;
+
+  private final CompressionMode compressionMode;
+
+  @Parameterized.Parameters(name = "{0}, mode: {1}")
+  public static List<Object[]> data() {
+    return buildParameters(getTestParameters().withNoneRuntime().build(), CompressionMode.values());
+  }
+
+  public ArchiveBuilderTest(TestParameters parameters, CompressionMode compressionMode) {
+    parameters.assertNoneRuntime();
+    this.compressionMode = compressionMode;
+  }
+
+  private static byte[] content(int seed, int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      // Compressible but not trivial content.
+      bytes[i] = (byte) ((i * seed) % 61);
+    }
+    return bytes;
+  }
+
+  private static Map<String, byte[]> readEntries(Path archive) throws Exception {
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+      while (zipEntries.hasMoreElements()) {
+        ZipEntry entry = zipEntries.nextElement();
+        entries.put(entry.getName(), ByteStreams.toByteArray(zipFile.getInputStream(entry)));
+      }
+    }
+    // Check that the local headers agree with the central directory.
+    try (ZipInputStream stream = new ZipInputStream(Files.newInputStream(archive))) {
+      List<String> names = new ArrayList<>(entries.keySet());
+      int index = 0;
+      ZipEntry entry;
+      while ((entry = stream.getNextEntry()) != null) {
+        assertEquals(names.get(index++), entry.getName());
+        assertArrayEquals(entries.get(entry.getName()), ByteStreams.toByteArray(stream));
+      }
+      assertEquals(names.size(), index);
+    }
+    return entries;
+  }
+
+  @Test
+  public void testEntries() throws Exception {
+    Path archive = temp.newFolder().toPath().resolve("out.zip");
+    ArchiveBuilder builder = new ArchiveBuilder(archive, compressionMode);
+    KeepingDiagnosticHandler handler = new KeepingDiagnosticHandler();
+    builder.open();
+    // Add the dex files concurrently and out of order.
+    List<Integer> indices = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_DEX_FILES; i++) {
+      indices.add(i);
+    }
+    Collections.reverse(indices);
+    ExecutorService executorService = ThreadUtils.getExecutorService(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int index : indices) {
+        futures.add(
+            executorService.submit(
+                () ->
+                    builder.addIndexedClassFile(
+                        index,
+                        "classes" + (index == 0 ? "" : index + 1) + ".dex",
+                        ByteDataView.of(content(index + 1, 100_000)),
+                        handler)));
+      }
+      ThreadUtils.awaitFutures(futures);
+    } finally {
+      executorService.shutdown();
+    }
+    builder.addFile("META-INF/b.txt", ByteDataView.of(content(3, 10)), handler);
+    builder.addFile(
+        "META-INF/a.txt",
+        DataEntryResource.fromBytes(
+            "a".getBytes(StandardCharsets.UTF_8), "META-INF/a.txt", Origin.unknown()),
+        handler);
+    builder.addFile("META-INF/b.txt", ByteDataView.of(content(3, 10)), handler);
+    builder.addDirectory("META-INF", handler);
+    builder.close(handler);
+
+    assertTrue(handler.errors.isEmpty());
+    Map<String, byte[]> entries = readEntries(archive);
+    List<String> names = new ArrayList<>(entries.keySet());
+    assertEquals(NUMBER_OF_DEX_FILES + 3, names.size());
+    for (int i = 0; i < NUMBER_OF_DEX_FILES; i++) {
+      String name = "classes" + (i == 0 ? "" : i + 1) + ".dex";
+      assertEquals(name, names.get(i));
+      assertArrayEquals(content(i + 1, 100_000), entries.get(name));
+    }
+    assertEquals("META-INF/", names.get(NUMBER_OF_DEX_FILES));
+    assertEquals("META-INF/a.txt", names.get(NUMBER_OF_DEX_FILES + 1));
+    assertEquals("META-INF/b.txt", names.get(NUMBER_OF_DEX_FILES + 2));
+    assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), entries.get("META-INF/a.txt"));
+    assertArrayEquals(content(3, 10), entries.get("META-INF/b.txt"));
+  }
+
+  @Test
+  public void testManyEntries() throws Exception {
+    // More entries than fit in the end of central directory record.
+    int numberOfEntries = 70_000;
+    Path archive = temp.newFolder().toPath().resolve("out.zip");
+    ArchiveBuilder builder = new ArchiveBuilder(archive, compressionMode);
+    KeepingDiagnosticHandler handler = new KeepingDiagnosticHandler();
+    builder.open();
+    for (int i = 0; i < numberOfEntries; i++) {
+      builder.addFile("a/A" + i + ".class", ByteDataView.of(content(i, 4)), handler);
+    }
+    builder.close(handler);
+    assertTrue(handler.errors.isEmpty());
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      assertEquals(numberOfEntries, zipFile.size());
+      ZipEntry entry = zipFile.getEntry("a/A42.class");
+      assertArrayEquals(content(42, 4), ByteStreams.toByteArray(zipFile.getInputStream(entry)));
+    }
+  }
+}
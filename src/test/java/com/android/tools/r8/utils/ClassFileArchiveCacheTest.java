@@ -0,0 +1,238 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.ClassFileSkeleton;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexLibraryClass;
+import com.android.tools.r8.graph.JarApplicationReader;
+import com.android.tools.r8.graph.JarClassFileReader;
+import com.google.common.collect.ImmutableSet;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class ClassFileArchiveCacheTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public ClassFileArchiveCacheTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private static void writeJar(Path jar, byte[] content) throws Exception {
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("a/A.class"));
+      output.write(content);
+      output.closeEntry();
+      output.putNextEntry(new ZipEntry("a/B.class"));
+      output.write(content);
+      output.closeEntry();
+      output.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+      output.closeEntry();
+    }
+  }
+
+  private static byte[] read(Path jar, ClassFileArchiveCache cache) throws Exception {
+    try (InternalArchiveClassFileProvider provider =
+        new InternalArchiveClassFileProvider(jar, name -> !name.startsWith("a/B"), cache)) {
+      assertEquals(ImmutableSet.of("La/A;"), provider.getClassDescriptors());
+      return provider.getProgramResource("La/A;").getBytes();
+    }
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path jar = temp.newFolder().toPath().resolve("library.jar");
+    writeJar(jar, new byte[] {1, 2, 3});
+    ClassFileArchiveCache cache = new ClassFileArchiveCache();
+    byte[] first = read(jar, cache);
+    assertArrayEquals(new byte[] {1, 2, 3}, first);
+    ClassFileArchiveCache.CachedArchive cachedArchive = cache.get(jar);
+    assertEquals(2, cachedArchive.getClassEntryNames().size());
+
+    // The second read is served from the cache.
+    assertSame(first, read(jar, cache));
+    assertSame(cachedArchive, cache.get(jar));
+
+    // Changing the archive invalidates the cached data.
+    writeJar(jar, new byte[] {4, 5, 6, 7});
+    touch(jar);
+    assertArrayEquals(new byte[] {4, 5, 6, 7}, read(jar, cache));
+    assertNotSame(cachedArchive, cache.get(jar));
+  }
+
+  private static void touch(Path jar) throws Exception {
+    Files.setLastModifiedTime(
+        jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10_000));
+  }
+
+  @Test
+  public void testArchiveChangedAfterListing() throws Exception {
+    Path jar = temp.newFolder().toPath().resolve("library.jar");
+    writeJar(jar, new byte[] {1, 2, 3});
+    ClassFileArchiveCache cache = new ClassFileArchiveCache();
+    try (InternalArchiveClassFileProvider provider =
+        new InternalArchiveClassFileProvider(jar, name -> true, cache)) {
+      ClassFileArchiveCache.CachedArchive cachedArchive = cache.get(jar);
+      writeJar(jar, new byte[] {4, 5, 6, 7});
+      touch(jar);
+
+      // The content of the changed archive is read, but not cached under the stale archive.
+      assertArrayEquals(new byte[] {4, 5, 6, 7}, provider.getProgramResource("La/A;").getBytes());
+      assertNull(cachedArchive.getContent("a/A.class"));
+    }
+  }
+
+  @Test
+  public void testEntryRemovedAfterListing() throws Exception {
+    Path jar = temp.newFolder().toPath().resolve("library.jar");
+    writeJar(jar, new byte[] {1, 2, 3});
+    ClassFileArchiveCache cache = new ClassFileArchiveCache();
+    try (InternalArchiveClassFileProvider provider =
+        new InternalArchiveClassFileProvider(jar, name -> true, cache)) {
+      try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+        output.putNextEntry(new ZipEntry("a/B.class"));
+        output.closeEntry();
+      }
+      touch(jar);
+      provider.getProgramResource("La/A;").getBytes();
+      fail("Expected the read of a removed entry to fail");
+    } catch (CompilationError e) {
+      assertThat(e.getMessage(), containsString("a/A.class"));
+    }
+  }
+
+  @Test
+  public void testLibraryClassSkeleton() throws Exception {
+    Path jar = temp.newFolder().toPath().resolve("library.jar");
+    String entryName = binaryName(Library.class) + ".class";
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry(entryName));
+      output.write(ToolHelper.getClassAsBytes(Library.class));
+      output.closeEntry();
+    }
+    String descriptor = descriptor(Library.class);
+    ClassFileArchiveCache cache = new ClassFileArchiveCache();
+    String expected = describe(readLibraryClass(jar, descriptor, null));
+
+    // The first compilation parses the class and caches its skeleton, which the second compilation
+    // materializes with its own factory.
+    assertEquals(expected, describe(readLibraryClass(jar, descriptor, cache)));
+    ClassFileSkeleton skeleton = cache.get(jar).getSkeleton(entryName, SKIP_FRAMES | SKIP_CODE);
+    assertNotNull(skeleton);
+    assertEquals(expected, describe(readLibraryClass(jar, descriptor, cache)));
+    assertSame(skeleton, cache.get(jar).getSkeleton(entryName, SKIP_FRAMES | SKIP_CODE));
+  }
+
+  private static DexClass readLibraryClass(
+      Path jar, String descriptor, ClassFileArchiveCache cache) throws Exception {
+    List<DexLibraryClass> classes = new ArrayList<>();
+    try (InternalArchiveClassFileProvider provider =
+        new InternalArchiveClassFileProvider(jar, name -> true, cache)) {
+      new JarClassFileReader<>(
+              new JarApplicationReader(new InternalOptions()), classes::add, ClassKind.LIBRARY)
+          .read(provider.getProgramResource(descriptor));
+    }
+    assertEquals(1, classes.size());
+    return classes.get(0);
+  }
+
+  private static String describe(DexClass clazz) {
+    StringBuilder builder = new StringBuilder();
+    builder
+        .append(clazz.getAccessFlags())
+        .append(' ')
+        .append(clazz.getType())
+        .append(" extends ")
+        .append(clazz.getSuperType())
+        .append(" implements ")
+        .append(clazz.getInterfaces())
+        .append(' ')
+        .append(clazz.getClassSignature())
+        .append(' ')
+        .append(clazz.annotations())
+        .append(' ')
+        .append(clazz.getInnerClasses())
+        .append(' ')
+        .append(clazz.getEnclosingMethodAttribute())
+        .append('\n');
+    clazz.forEachField(
+        field ->
+            builder
+                .append(field.getAccessFlags())
+                .append(' ')
+                .append(field.getReference())
+                .append(' ')
+                .append(field.getGenericSignature())
+                .append(' ')
+                .append(field.annotations())
+                .append('\n'));
+    clazz.forEachMethod(
+        method ->
+            builder
+                .append(method.getAccessFlags())
+                .append(' ')
+                .append(method.getReference())
+                .append(' ')
+                .append(method.getGenericSignature())
+                .append(' ')
+                .append(method.annotations())
+                .append(' ')
+                .append(method.getParameterAnnotations())
+                .append('\n'));
+    return builder.toString();
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Marker {
+    String value();
+  }
+
+  @Marker("class")
+  public abstract static class Library<T> extends ArrayList<T> implements Comparable<T> {
+
+    @Marker("field")
+    public static final int CONSTANT = 42;
+
+    protected List<T> values;
+
+    @Deprecated
+    public abstract <S extends T> S method(@Marker("parameter") S value, int[] values);
+
+    public class Inner {}
+  }
+}
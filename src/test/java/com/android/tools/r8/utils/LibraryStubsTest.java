@@ -0,0 +1,125 @@
+// Copyright (c) 2021, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+@RunWith(Parameterized.class)
+public class LibraryStubsTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withAllApiLevels().build();
+  }
+
+  public LibraryStubsTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void testStubContent() throws Exception {
+    Path library = temp.newFolder().toPath().resolve("library.jar");
+    writeClassesToJar(library, ImmutableList.of(LibraryClass.class));
+    Path stubs = temp.newFolder().toPath().resolve("library" + LibraryStubs.EXTENSION);
+    LibraryStubs.write(library, stubs);
+
+    LibraryStubsClassFileProvider provider = new LibraryStubsClassFileProvider(stubs);
+    String descriptor = descriptor(LibraryClass.class);
+    assertEquals(ImmutableSet.of(descriptor), provider.getClassDescriptors());
+    assertNull(provider.getProgramResource("LMissing;"));
+    ProgramResource resource = provider.getProgramResource(descriptor);
+    assertEquals(ImmutableSet.of(descriptor), resource.getClassDescriptors());
+
+    List<String> members = new ArrayList<>();
+    new ClassReader(resource.getBytes())
+        .accept(
+            new ClassVisitor(InternalOptions.ASM_VERSION) {
+              @Override
+              public FieldVisitor visitField(
+                  int access, String name, String descriptor, String signature, Object value) {
+                assertNull(value);
+                members.add(name);
+                return null;
+              }
+
+              @Override
+              public MethodVisitor visitMethod(
+                  int access,
+                  String name,
+                  String descriptor,
+                  String signature,
+                  String[] exceptions) {
+                members.add(name);
+                return new MethodVisitor(InternalOptions.ASM_VERSION) {
+                  @Override
+                  public void visitCode() {
+                    throw new AssertionError("Unexpected code in stub");
+                  }
+                };
+              }
+            },
+            0);
+    assertEquals(ImmutableList.of("CONSTANT", "field", "<init>", "method"), members);
+  }
+
+  @Test
+  public void testCompileWithStubs() throws Exception {
+    Path stubs = temp.newFolder().toPath().resolve("android" + LibraryStubs.EXTENSION);
+    LibraryStubs.write(
+        ToolHelper.getFirstSupportedAndroidJar(parameters.getApiLevel()), stubs);
+    testForD8()
+        .addProgramClasses(Main.class)
+        .addLibraryFiles(stubs)
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!");
+    assertTrue(LibraryStubs.isLibraryStubsFile(stubs));
+  }
+
+  static class LibraryClass {
+    public static final String CONSTANT = "constant";
+    private static final Object PRIVATE_STATIC = new Object();
+
+    public int field;
+    private int privateField;
+
+    public void method() {
+      privateMethod();
+    }
+
+    private void privateMethod() {
+      System.out.println(PRIVATE_STATIC);
+    }
+  }
+
+  static class Main {
+    public static void main(String[] args) {
+      System.out.println("Hello, world!");
+    }
+  }
+}